@@ -0,0 +1,42 @@
+package ru.vk.itmo.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.vk.itmo.test.DaoFactories;
+
+import java.util.List;
+
+/**
+ * Runs the benchmarks against every {@code @DaoFactory} on the classpath, once per thread count.
+ * Arguments: {@code [includeRegex] [threadCounts]}, e.g. {@code "DaoBenchmarks.get" 1,4,8};
+ * by default all benchmarks run with 1 and 4 threads.
+ * Results of each thread count go to {@code build/jmh/results-<threads>.json}.
+ */
+public final class DaoBenchmarkRunner {
+    private static final String DEFAULT_THREADS = "1,4";
+
+    private DaoBenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : DaoBenchmarks.class.getName();
+        String threadCounts = args.length > 1 ? args[1] : DEFAULT_THREADS;
+        List<String> factories = DaoFactories.discover();
+        if (factories.isEmpty()) {
+            throw new IllegalStateException("No DaoFactory found on the classpath");
+        }
+
+        for (String threads : threadCounts.split(",")) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .param("factory", factories.toArray(new String[0]))
+                    .threads(Integer.parseInt(threads.trim()))
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("build/jmh/results-" + threads.trim() + ".json");
+            new Runner(options.build()).run();
+        }
+    }
+}
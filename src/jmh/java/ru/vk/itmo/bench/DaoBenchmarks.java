@@ -0,0 +1,42 @@
+package ru.vk.itmo.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.vk.itmo.Entry;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx2g"})
+public class DaoBenchmarks {
+    private static final int SCAN_LENGTH = 100;
+
+    @Benchmark
+    public void upsert(DaoState state) {
+        state.harness.upsert(state.randomIndex());
+    }
+
+    @Benchmark
+    public Entry<?> get(DaoState state) {
+        return state.harness.get(state.randomIndex());
+    }
+
+    @Benchmark
+    public void scan(DaoState state, Blackhole blackhole) {
+        state.harness.scan(state.randomIndex(), SCAN_LENGTH, blackhole);
+    }
+
+    @Benchmark
+    public void cursorScan(DaoState state, Blackhole blackhole) {
+        state.harness.cursorScan(state.randomIndex(), SCAN_LENGTH, blackhole);
+    }
+}
@@ -0,0 +1,122 @@
+package ru.vk.itmo.bench;
+
+import org.openjdk.jmh.infra.Blackhole;
+import ru.vk.itmo.BaseEntry;
+import ru.vk.itmo.Config;
+import ru.vk.itmo.Cursor;
+import ru.vk.itmo.Dao;
+import ru.vk.itmo.Entry;
+import ru.vk.itmo.abramovilya.MemorySegmentCursor;
+import ru.vk.itmo.test.DaoFactories;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Drives a Dao in its own data type: keys and entries are converted once up front,
+ * so that the benchmarks measure the engine rather than the string conversions of the test wrapper.
+ */
+final class DaoHarness<D, E extends Entry<D>> implements Closeable {
+    private final Dao<D, E> dao;
+    private final List<D> keys;
+    private final List<E> entries;
+    private final MemorySegment copyBuffer;
+
+    private DaoHarness(
+            DaoFactory.Factory<D, E> factory,
+            Config config,
+            int keySize,
+            int keyCount,
+            int valueSize
+    ) throws IOException {
+        this.dao = factory.createDao(config);
+        this.keys = new ArrayList<>(keyCount);
+        this.entries = new ArrayList<>(keyCount);
+        String value = "v".repeat(valueSize);
+        this.copyBuffer = Arena.ofAuto().allocate(Math.max(key(0, keySize).length(), valueSize));
+        for (int i = 0; i < keyCount; i++) {
+            D key = factory.fromString(key(i, keySize));
+            keys.add(key);
+            entries.add(factory.fromBaseEntry(new BaseEntry<>(key, factory.fromString(value))));
+        }
+    }
+
+    static DaoHarness<?, ?> open(
+            String factoryClassName,
+            Config config,
+            int keySize,
+            int keyCount,
+            int valueSize
+    ) throws IOException {
+        return new DaoHarness<>(DaoFactories.create(factoryClassName), config, keySize, keyCount, valueSize);
+    }
+
+    /**
+     * Keys are padded so that they are {@code keySize} long and differ only in their last digits,
+     * which is the worst case for comparators.
+     */
+    private static String key(int index, int keySize) {
+        String digits = Integer.toString(index);
+        String padded = "0".repeat(Math.max(0, 10 - digits.length())) + digits;
+        return "k".repeat(Math.max(0, keySize - padded.length())) + padded;
+    }
+
+    void load() {
+        for (E entry : entries) {
+            dao.upsert(entry);
+        }
+    }
+
+    void upsert(int index) {
+        dao.upsert(entries.get(index));
+    }
+
+    E get(int index) {
+        return dao.get(keys.get(index));
+    }
+
+    void scan(int from, int length, Blackhole blackhole) {
+        Iterator<E> iterator = dao.get(keys.get(from), null);
+        for (int i = 0; i < length && iterator.hasNext(); i++) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    void cursorScan(int from, int length, Blackhole blackhole) {
+        Cursor<D> cursor = dao.cursor(keys.get(from), null);
+        if (cursor instanceof MemorySegmentCursor segmentCursor) {
+            copyScan(segmentCursor, length, blackhole);
+            return;
+        }
+        for (int i = 0; i < length && cursor.isValid(); i++) {
+            blackhole.consume(cursor.key());
+            blackhole.consume(cursor.value());
+            cursor.next();
+        }
+    }
+
+    /**
+     * Reads entries the way a consumer that owns its buffers would: copying them out allocates nothing per entry.
+     */
+    private void copyScan(MemorySegmentCursor cursor, int length, Blackhole blackhole) {
+        for (int i = 0; i < length && cursor.isValid(); i++) {
+            cursor.copyKeyTo(copyBuffer, 0);
+            blackhole.consume(cursor.keySize());
+            cursor.copyValueTo(copyBuffer, 0);
+            blackhole.consume(cursor.valueSize());
+            cursor.next();
+        }
+        blackhole.consume(copyBuffer);
+    }
+
+    @Override
+    public void close() throws IOException {
+        dao.close();
+    }
+}
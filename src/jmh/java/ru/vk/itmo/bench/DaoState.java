@@ -0,0 +1,59 @@
+package ru.vk.itmo.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ru.vk.itmo.Config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * A Dao preloaded with {@code keyCount} keys in a fresh directory, shared by all benchmark threads.
+ * The factory has no default: {@link DaoBenchmarkRunner} passes every discovered one.
+ */
+@State(Scope.Benchmark)
+public class DaoState {
+    @Param
+    public String factory;
+
+    @Param({"16", "128"})
+    public int keySize;
+
+    @Param({"100000"})
+    public int keyCount;
+
+    @Param({"100"})
+    public int valueSize;
+
+    DaoHarness<?, ?> harness;
+    private Path basePath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        basePath = Files.createTempDirectory("dao-bench");
+        harness = DaoHarness.open(factory, new Config(basePath), keySize, keyCount, valueSize);
+        harness.load();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        harness.close();
+        try (Stream<Path> files = Files.walk(basePath)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(keyCount);
+    }
+}
@@ -2,5 +2,117 @@ package ru.vk.itmo;
 
 import java.nio.file.Path;
 
-public record Config(Path basePath) {
+public record Config(
+        Path basePath,
+        long flushThresholdBytes,
+        int bloomFilterBitsPerKey,
+        CompactionStyle compactionStyle,
+        Durability durability,
+        long walSyncIntervalMillis,
+        long blockCacheBytes,
+        Compression compression,
+        int prefixFilterLength,
+        int memTableShards,
+        int partitions
+) {
+    public static final long DEFAULT_FLUSH_THRESHOLD_BYTES = 1024 * 1024;
+    public static final int DEFAULT_BLOOM_FILTER_BITS_PER_KEY = 10;
+    public static final long DEFAULT_WAL_SYNC_INTERVAL_MILLIS = 100;
+    public static final long DEFAULT_BLOCK_CACHE_BYTES = 8 * 1024 * 1024;
+
+    public Config {
+        if (memTableShards < 1) {
+            throw new IllegalArgumentException("memTableShards must be at least 1, not " + memTableShards);
+        }
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be at least 1, not " + partitions);
+        }
+    }
+
+    /**
+     * Creates a config with default settings; the {@code with*} methods return a copy with one setting changed.
+     */
+    public Config(Path basePath) {
+        this(basePath, DEFAULT_FLUSH_THRESHOLD_BYTES, DEFAULT_BLOOM_FILTER_BITS_PER_KEY, CompactionStyle.SIZE_TIERED,
+                Durability.BUFFERED, DEFAULT_WAL_SYNC_INTERVAL_MILLIS, DEFAULT_BLOCK_CACHE_BYTES, Compression.NONE,
+                0, 1, 1);
+    }
+
+    public Config withBasePath(Path basePath) {
+        return new Config(basePath, flushThresholdBytes, bloomFilterBitsPerKey, compactionStyle, durability,
+                walSyncIntervalMillis, blockCacheBytes, compression, prefixFilterLength, memTableShards, partitions);
+    }
+
+    public Config withFlushThresholdBytes(long flushThresholdBytes) {
+        return new Config(basePath, flushThresholdBytes, bloomFilterBitsPerKey, compactionStyle, durability,
+                walSyncIntervalMillis, blockCacheBytes, compression, prefixFilterLength, memTableShards, partitions);
+    }
+
+    public Config withBloomFilterBitsPerKey(int bloomFilterBitsPerKey) {
+        return new Config(basePath, flushThresholdBytes, bloomFilterBitsPerKey, compactionStyle, durability,
+                walSyncIntervalMillis, blockCacheBytes, compression, prefixFilterLength, memTableShards, partitions);
+    }
+
+    public Config withCompactionStyle(CompactionStyle compactionStyle) {
+        return new Config(basePath, flushThresholdBytes, bloomFilterBitsPerKey, compactionStyle, durability,
+                walSyncIntervalMillis, blockCacheBytes, compression, prefixFilterLength, memTableShards, partitions);
+    }
+
+    public Config withDurability(Durability durability) {
+        return new Config(basePath, flushThresholdBytes, bloomFilterBitsPerKey, compactionStyle, durability,
+                walSyncIntervalMillis, blockCacheBytes, compression, prefixFilterLength, memTableShards, partitions);
+    }
+
+    public Config withWalSyncIntervalMillis(long walSyncIntervalMillis) {
+        return new Config(basePath, flushThresholdBytes, bloomFilterBitsPerKey, compactionStyle, durability,
+                walSyncIntervalMillis, blockCacheBytes, compression, prefixFilterLength, memTableShards, partitions);
+    }
+
+    public Config withBlockCacheBytes(long blockCacheBytes) {
+        return new Config(basePath, flushThresholdBytes, bloomFilterBitsPerKey, compactionStyle, durability,
+                walSyncIntervalMillis, blockCacheBytes, compression, prefixFilterLength, memTableShards, partitions);
+    }
+
+    public Config withCompression(Compression compression) {
+        return new Config(basePath, flushThresholdBytes, bloomFilterBitsPerKey, compactionStyle, durability,
+                walSyncIntervalMillis, blockCacheBytes, compression, prefixFilterLength, memTableShards, partitions);
+    }
+
+    public Config withPrefixFilterLength(int prefixFilterLength) {
+        return new Config(basePath, flushThresholdBytes, bloomFilterBitsPerKey, compactionStyle, durability,
+                walSyncIntervalMillis, blockCacheBytes, compression, prefixFilterLength, memTableShards, partitions);
+    }
+
+    public Config withMemTableShards(int memTableShards) {
+        return new Config(basePath, flushThresholdBytes, bloomFilterBitsPerKey, compactionStyle, durability,
+                walSyncIntervalMillis, blockCacheBytes, compression, prefixFilterLength, memTableShards, partitions);
+    }
+
+    public Config withPartitions(int partitions) {
+        return new Config(basePath, flushThresholdBytes, bloomFilterBitsPerKey, compactionStyle, durability,
+                walSyncIntervalMillis, blockCacheBytes, compression, prefixFilterLength, memTableShards, partitions);
+    }
+
+    public enum CompactionStyle {
+        /* Merges tables of similar size: cheap writes, but old versions may pile up. */
+        SIZE_TIERED,
+        /* Keeps non-overlapping levels growing by a fixed ratio: bounded space and read overhead. */
+        LEVELED
+    }
+
+    public enum Durability {
+        /* Upsert returns once its batch of the write-ahead log is synced to disk. */
+        SYNC,
+        /* Upsert returns once its batch is written; the log is synced every walSyncIntervalMillis. */
+        PERIODIC,
+        /* Upsert returns once its batch is written; syncing is left to the OS. Survives a process crash only. */
+        BUFFERED
+    }
+
+    public enum Compression {
+        /* Data blocks are stored as is. */
+        NONE,
+        /* Data blocks are compressed with an LZ77-family codec; blocks that do not shrink are stored as is. */
+        LZ
+    }
 }
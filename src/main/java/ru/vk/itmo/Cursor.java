@@ -0,0 +1,41 @@
+package ru.vk.itmo;
+
+/**
+ * Position in an ordered range of entries that moves in place instead of returning an entry per step.
+ * Keys and values it returns may be views that are only valid until the cursor moves, so callers that
+ * keep them must copy them. A new cursor is positioned at the first entry of its range.
+ * Once past the end, only {@link #seek} and {@link #isValid} may be called; the other methods
+ * throw {@link java.util.NoSuchElementException}.
+ * @param <D> data type of keys and values
+ */
+public interface Cursor<D> {
+
+    /**
+     * Moves to the first entry of the range whose key is not less than key.
+     * @param key key to seek to, null for the start of the range
+     */
+    void seek(D key);
+
+    /**
+     * Tells whether the cursor is on an entry rather than past the end of the range.
+     * @return true if key and value are available
+     */
+    boolean isValid();
+
+    /**
+     * Moves to the next entry of the range, possibly past the end.
+     */
+    void next();
+
+    /**
+     * Returns the key of the current entry.
+     * @return key, valid until the cursor moves
+     */
+    D key();
+
+    /**
+     * Returns the value of the current entry, never null: removed keys are skipped.
+     * @return value, valid until the cursor moves
+     */
+    D value();
+}
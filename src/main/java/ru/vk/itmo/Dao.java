@@ -2,7 +2,10 @@ package ru.vk.itmo;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 public interface Dao<D, E extends Entry<D>> extends Closeable {
 
@@ -14,6 +17,19 @@ public interface Dao<D, E extends Entry<D>> extends Closeable {
      */
     Iterator<E> get(D from, D to);
 
+    /**
+     * Returns iterator of entries with keys between from (inclusive) and to (exclusive) in descending order.
+     * Note: default implementation reads the whole range before returning the first entry.
+     * @param from lower bound of range (inclusive)
+     * @param to upper bound of range (exclusive)
+     * @return entries [from;to) from the last one to the first
+     */
+    default Iterator<E> getDescending(D from, D to) {
+        List<E> entries = new ArrayList<>();
+        get(from, to).forEachRemaining(entries::add);
+        return entries.reversed().iterator();
+    }
+
     /**
      * Returns entry by key. Note: default implementation is far from optimal.
      * @param key entry`s key
@@ -31,6 +47,19 @@ public interface Dao<D, E extends Entry<D>> extends Closeable {
         return null;
     }
 
+    /**
+     * Returns entries by keys. Note: default implementation looks every key up separately.
+     * @param keys keys to look up, in any order and possibly repeated
+     * @return entries in the order of keys, with null for keys that have no entry
+     */
+    default List<E> getAll(Collection<D> keys) {
+        List<E> entries = new ArrayList<>(keys.size());
+        for (D key : keys) {
+            entries.add(get(key));
+        }
+        return entries;
+    }
+
     /**
      * Returns ordered iterator of all entries with keys from (inclusive).
      * @param from lower bound of range (inclusive)
@@ -58,11 +87,79 @@ public interface Dao<D, E extends Entry<D>> extends Closeable {
     }
 
     /**
-     * Inserts of replaces entry.
+     * Returns ordered iterator of all entries whose keys start with prefix. Note: not supported by default,
+     * since the upper bound of the range depends on the key type.
+     * @param prefix leading part of the keys
+     * @return entries with key starting with prefix
+     */
+    default Iterator<E> scanPrefix(D prefix) {
+        throw new UnsupportedOperationException("Prefix scans are not supported");
+    }
+
+    /**
+     * Returns cursor over entries with keys between from (inclusive) and to (exclusive), positioned at the first
+     * one. Seeks must stay within the range. Note: default implementation wraps get(from, to), so it allocates
+     * as much as the iterator does.
+     * @param from lower bound of range (inclusive)
+     * @param to upper bound of range (exclusive)
+     * @return cursor over entries [from;to)
+     */
+    default Cursor<D> cursor(D from, D to) {
+        return new IteratorCursor<>(this, from, to);
+    }
+
+    /**
+     * Returns iterator of all entries with keys from (inclusive) in descending order.
+     * @param from lower bound of range (inclusive)
+     * @return entries with key >= from from the last one to the first
+     */
+    default Iterator<E> allFromDescending(D from) {
+        return getDescending(from, null);
+    }
+
+    /**
+     * Returns iterator of all entries with keys < to in descending order.
+     * @param to upper bound of range (exclusive)
+     * @return entries with key < to from the last one to the first
+     */
+    default Iterator<E> allToDescending(D to) {
+        return getDescending(null, to);
+    }
+
+    /**
+     * Returns iterator of all entries in descending order.
+     * @return all entries from the last one to the first
+     */
+    default Iterator<E> allDescending() {
+        return getDescending(null, null);
+    }
+
+    /**
+     * Returns a read-only view of the current data: later writes do not show through it, and upserts to it throw
+     * {@link UnsupportedOperationException}. Note: not supported by default.
+     * @return consistent view of the data as of now
+     */
+    default Dao<D, E> snapshot() {
+        throw new UnsupportedOperationException("Snapshots are not supported");
+    }
+
+    /**
+     * Inserts of replaces entry. Entry with null value removes the key.
      * @param entry element to upsert
      */
     void upsert(E entry);
 
+    /**
+     * Applies all upserts of the batch in order. Note: default implementation upserts entries one by one,
+     * so readers may see a part of the batch, and a failure may leave a part of it applied.
+     * @param batch upserts to apply
+     */
+    default void write(WriteBatch<E> batch) {
+        for (E entry : batch) {
+            upsert(entry);
+        }
+    }
+
     /*
      * Persists data (no-op by default).
      */
@@ -70,6 +167,13 @@ public interface Dao<D, E extends Entry<D>> extends Closeable {
         //by default do nothing
     }
 
+    /*
+     * Compacts persisted data (no-op by default).
+     */
+    default void compact() throws IOException {
+        //by default do nothing
+    }
+
     /*
      * Releases Dao (calls flush by default).
      */
@@ -0,0 +1,57 @@
+package ru.vk.itmo;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Cursor over {@link Dao#get(Object, Object)}: every step takes an entry of the iterator,
+ * and every seek opens a new one.
+ */
+final class IteratorCursor<D, E extends Entry<D>> implements Cursor<D> {
+    private final Dao<D, E> dao;
+    private final D from;
+    private final D to;
+    private Iterator<E> iterator;
+    private E current;
+
+    IteratorCursor(Dao<D, E> dao, D from, D to) {
+        this.dao = dao;
+        this.from = from;
+        this.to = to;
+        seek(null);
+    }
+
+    @Override
+    public void seek(D key) {
+        iterator = dao.get(key == null ? from : key, to);
+        current = iterator.hasNext() ? iterator.next() : null;
+    }
+
+    @Override
+    public boolean isValid() {
+        return current != null;
+    }
+
+    @Override
+    public void next() {
+        current();
+        current = iterator.hasNext() ? iterator.next() : null;
+    }
+
+    @Override
+    public D key() {
+        return current().key();
+    }
+
+    @Override
+    public D value() {
+        return current().value();
+    }
+
+    private E current() {
+        if (current == null) {
+            throw new NoSuchElementException();
+        }
+        return current;
+    }
+}
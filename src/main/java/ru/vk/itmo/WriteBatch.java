@@ -0,0 +1,45 @@
+package ru.vk.itmo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Group of upserts that {@link Dao#write} applies together. An entry with null value removes the key;
+ * a key upserted several times ends up with the last of its entries.
+ * @param <E> entry type of the target Dao
+ */
+public final class WriteBatch<E extends Entry<?>> implements Iterable<E> {
+    private final List<E> entries = new ArrayList<>();
+
+    /**
+     * Adds an upsert to the end of the batch.
+     * @param entry element to upsert
+     * @return this batch
+     */
+    public WriteBatch<E> upsert(E entry) {
+        entries.add(entry);
+        return this;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Removes all upserts, so that the batch can be filled again.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return Collections.unmodifiableList(entries).iterator();
+    }
+}
@@ -0,0 +1,232 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.BaseEntry;
+import ru.vk.itmo.Entry;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+
+/**
+ * Data block of an {@link SSTable}. Keys are delta-encoded against the previous key of the block:
+ * <pre>
+ * block:   entry* restartOffset:int* restartCount:int entryCount:int
+ * entry:   sharedKeySize:varint unsharedKeySize:varint valueSize+1:varint unsharedKey value
+ * </pre>
+ * A tombstone is stored with an encoded value size of 0. Every {@value #RESTART_INTERVAL}th entry is a restart
+ * point that shares nothing with its predecessor, so a search finds the right restart by binary search over
+ * full keys and decodes at most {@value #RESTART_INTERVAL} entries from there.
+ */
+final class Block {
+    static final int RESTART_INTERVAL = 16;
+    static final int TRAILER_SIZE = 2 * Integer.BYTES;
+
+    private final MemorySegment segment;
+    private final int entryCount;
+    private final int restartCount;
+    private final long restartsOffset;
+
+    Block(MemorySegment segment) {
+        this.segment = segment;
+        long trailerOffset = segment.byteSize() - TRAILER_SIZE;
+        this.restartCount = segment.get(ValueLayout.JAVA_INT_UNALIGNED, trailerOffset);
+        this.entryCount = segment.get(ValueLayout.JAVA_INT_UNALIGNED, trailerOffset + Integer.BYTES);
+        this.restartsOffset = trailerOffset - (long) restartCount * Integer.BYTES;
+    }
+
+    int entryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns a cursor on the entry with the given ordinal, or past the end if there is no such entry.
+     */
+    Cursor seek(int ordinal) {
+        Cursor cursor = new Cursor();
+        if (ordinal >= entryCount) {
+            return cursor;
+        }
+        cursor.reset(ordinal / RESTART_INTERVAL);
+        while (cursor.ordinal < ordinal) {
+            cursor.next();
+        }
+        return cursor;
+    }
+
+    /**
+     * Returns a cursor on the first entry whose key is not less than {@code key}, or past the end.
+     */
+    Cursor seek(MemorySegment key) {
+        Cursor cursor = new Cursor();
+        cursor.reset(Math.max(lastRestartNotAfter(key, 0), 0));
+        cursor.skipTo(key);
+        return cursor;
+    }
+
+    /**
+     * Returns the last restart from {@code low} on whose key is not greater than {@code key}, or {@code low - 1}.
+     */
+    private int lastRestartNotAfter(MemorySegment key, int low) {
+        int lowest = low;
+        int high = restartCount - 1;
+        while (lowest <= high) {
+            int mid = (lowest + high) >>> 1;
+            if (compareRestartKey(mid, key) <= 0) {
+                lowest = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Compares the key of a restart entry, which is stored whole, without decoding it into a cursor.
+     */
+    private int compareRestartKey(int restart, MemorySegment key) {
+        // The shared size of a restart is zero, which takes a single byte
+        long position = restartOffset(restart) + 1;
+        int keySize = readVarInt(segment, position);
+        position += varIntSize(keySize);
+        position += varIntSize(readVarInt(segment, position));
+        return MemorySegmentComparator.compare(segment, position, position + keySize, key, 0, key.byteSize());
+    }
+
+    private int restartOffset(int restart) {
+        return segment.get(ValueLayout.JAVA_INT_UNALIGNED, restartsOffset + (long) restart * Integer.BYTES);
+    }
+
+    private static int readVarInt(MemorySegment segment, long offset) {
+        int result = 0;
+        long position = offset;
+        for (int shift = 0; ; shift += 7) {
+            byte b = segment.get(ValueLayout.JAVA_BYTE, position++);
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+    }
+
+    private static int varIntSize(int value) {
+        return (Integer.SIZE - Integer.numberOfLeadingZeros(value | 1) + 6) / 7;
+    }
+
+    /**
+     * Decodes entries one by one, keeping the key of the current entry in a reusable buffer.
+     */
+    final class Cursor {
+        private byte[] key = new byte[64];
+        private MemorySegment keySegment = MemorySegment.ofArray(key);
+        private int keySize;
+        private int ordinal = entryCount;
+        private long position;
+        private long valueOffset;
+        private int valueSize;
+
+        boolean isValid() {
+            return ordinal < entryCount;
+        }
+
+        int ordinal() {
+            return ordinal;
+        }
+
+        int compareKey(MemorySegment other) {
+            return MemorySegmentComparator.compare(keySegment, 0, keySize, other, 0, other.byteSize());
+        }
+
+        MemorySegment key() {
+            return MemorySegment.ofArray(Arrays.copyOf(key, keySize));
+        }
+
+        /**
+         * Returns the reusable buffer that holds the current key at {@code [0, keySize())}.
+         */
+        MemorySegment keyBuffer() {
+            return keySegment;
+        }
+
+        int keySize() {
+            return keySize;
+        }
+
+        MemorySegment block() {
+            return segment;
+        }
+
+        long valueOffset() {
+            return valueOffset;
+        }
+
+        int valueSize() {
+            return valueSize;
+        }
+
+        /**
+         * Returns the current entry; its value is a slice of the block.
+         */
+        Entry<MemorySegment> entry() {
+            return new BaseEntry<>(key(), valueSize == SSTable.TOMBSTONE_SIZE ? null : value());
+        }
+
+        void next() {
+            ordinal++;
+            if (isValid()) {
+                decode();
+            }
+        }
+
+        /**
+         * Moves forward to the first entry whose key is not less than {@code key}, jumping over whole
+         * restart intervals when the key lies beyond the current one.
+         */
+        void advanceTo(MemorySegment key) {
+            if (!isValid() || compareKey(key) >= 0) {
+                return;
+            }
+            int restart = ordinal / RESTART_INTERVAL;
+            int target = lastRestartNotAfter(key, restart + 1);
+            if (target > restart) {
+                reset(target);
+            }
+            skipTo(key);
+        }
+
+        private void skipTo(MemorySegment key) {
+            while (isValid() && compareKey(key) < 0) {
+                next();
+            }
+        }
+
+        private MemorySegment value() {
+            return segment.asSlice(valueOffset, valueSize);
+        }
+
+        private void reset(int restart) {
+            ordinal = restart * RESTART_INTERVAL;
+            position = restartOffset(restart);
+            decode();
+        }
+
+        private void decode() {
+            int sharedKeySize = readVarInt();
+            int unsharedKeySize = readVarInt();
+            valueSize = readVarInt() - 1;
+            keySize = sharedKeySize + unsharedKeySize;
+            if (keySize > key.length) {
+                key = Arrays.copyOf(key, Math.max(keySize, key.length * 2));
+                keySegment = MemorySegment.ofArray(key);
+            }
+            MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, position, key, sharedKeySize, unsharedKeySize);
+            valueOffset = position + unsharedKeySize;
+            position = valueOffset + Math.max(valueSize, 0);
+        }
+
+        private int readVarInt() {
+            int result = Block.readVarInt(segment, position);
+            position += varIntSize(result);
+            return result;
+        }
+    }
+}
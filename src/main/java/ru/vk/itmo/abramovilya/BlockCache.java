@@ -0,0 +1,137 @@
+package ru.vk.itmo.abramovilya;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Cache of decompressed SSTable data blocks shared by all tables of a Dao and bounded by their total size.
+ * Blocks stored as is are read straight from the mapping and never get here, since copying them would cost
+ * more than the page cache access it saves.
+ * Blocks are spread over shards by key, each shard guarded by its own lock and evicting with the CLOCK
+ * algorithm: a hit sets the reference bit of a block, and the clock hand evicts the first block whose bit
+ * is clear, clearing the bits it passes. New blocks start with a clear bit, so blocks read once by a scan
+ * leave before the ones that were hit again.
+ * Cached blocks are immutable heap segments. A reader holding a block keeps it valid even after eviction,
+ * so iterators pin their current block simply by referencing it, at the cost of that block living outside
+ * the budget until they move on.
+ */
+final class BlockCache {
+    private static final int SHARD_BITS = 4;
+    private static final int SHARD_COUNT = 1 << SHARD_BITS;
+
+    private final Shard[] shards = new Shard[SHARD_COUNT];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    BlockCache(long capacityBytes) {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new Shard(capacityBytes / SHARD_COUNT);
+        }
+    }
+
+    /**
+     * Returns block {@code blockIndex} of table {@code tableId}, loading it with {@code loader} on a miss.
+     */
+    MemorySegment get(long tableId, int blockIndex, IntFunction<MemorySegment> loader) {
+        long key = (tableId << Integer.SIZE) | blockIndex;
+        Shard shard = shards[(int) (mix(key) >>> (Long.SIZE - SHARD_BITS))];
+        MemorySegment block = shard.get(key);
+        if (block != null) {
+            hits.increment();
+            return block;
+        }
+        misses.increment();
+        return shard.put(key, loader.apply(blockIndex));
+    }
+
+    long hitCount() {
+        return hits.sum();
+    }
+
+    long missCount() {
+        return misses.sum();
+    }
+
+    private static long mix(long key) {
+        long hash = key * 0x9E37_79B9_7F4A_7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static final class Shard {
+        private final long capacityBytes;
+        // Guarded by this
+        private final Map<Long, Node> nodes = new HashMap<>();
+        private final List<Node> clock = new ArrayList<>();
+        private int hand;
+        private long sizeBytes;
+
+        Shard(long capacityBytes) {
+            this.capacityBytes = capacityBytes;
+        }
+
+        synchronized MemorySegment get(long key) {
+            Node node = nodes.get(key);
+            if (node == null) {
+                return null;
+            }
+            node.referenced = true;
+            return node.block;
+        }
+
+        synchronized MemorySegment put(long key, MemorySegment block) {
+            Node present = nodes.get(key);
+            if (present != null) {
+                return present.block;
+            }
+            if (block.byteSize() > capacityBytes) {
+                return block;
+            }
+            while (sizeBytes + block.byteSize() > capacityBytes) {
+                evict();
+            }
+            Node node = new Node(key, block);
+            nodes.put(key, node);
+            clock.add(node);
+            sizeBytes += block.byteSize();
+            return block;
+        }
+
+        // Guarded by this
+        private void evict() {
+            while (true) {
+                if (hand >= clock.size()) {
+                    hand = 0;
+                }
+                Node node = clock.get(hand);
+                if (node.referenced) {
+                    node.referenced = false;
+                    hand++;
+                    continue;
+                }
+                // The last node takes the place of the evicted one, so the ring stays dense
+                clock.set(hand, clock.getLast());
+                clock.removeLast();
+                nodes.remove(node.key);
+                sizeBytes -= node.block.byteSize();
+                return;
+            }
+        }
+    }
+
+    private static final class Node {
+        final long key;
+        final MemorySegment block;
+        // Guarded by the shard
+        boolean referenced;
+
+        Node(long key, MemorySegment block) {
+            this.key = key;
+            this.block = block;
+        }
+    }
+}
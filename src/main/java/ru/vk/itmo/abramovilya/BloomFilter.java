@@ -0,0 +1,116 @@
+package ru.vk.itmo.abramovilya;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Bloom filter over table keys stored as a bit array of {@code long} words.
+ * Probes are derived from a single 64-bit key hash by double hashing,
+ * so the hash can be computed once and reused for every table.
+ */
+final class BloomFilter {
+    private static final ValueLayout.OfLong HASH_LAYOUT =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final int MAX_HASH_COUNT = 30;
+
+    private final MemorySegment bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    BloomFilter(MemorySegment bits, int hashCount) {
+        this.bits = bits;
+        this.bitCount = bits.byteSize() * Byte.SIZE;
+        this.hashCount = hashCount;
+    }
+
+    boolean mightContain(long hash) {
+        if (hashCount == 0 || bitCount == 0) {
+            return true;
+        }
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            long word = bits.get(ValueLayout.JAVA_LONG_UNALIGNED, (bit >>> 6) * Long.BYTES);
+            if ((word & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int hashCount(int bitsPerKey) {
+        if (bitsPerKey <= 0) {
+            return 0;
+        }
+        return Math.clamp(Math.round(bitsPerKey * Math.log(2)), 1, MAX_HASH_COUNT);
+    }
+
+    static long hash(MemorySegment key) {
+        long size = key.byteSize();
+        long hash = SEED ^ size;
+        long offset = 0;
+        for (; offset + Long.BYTES <= size; offset += Long.BYTES) {
+            hash = mix(hash ^ key.get(HASH_LAYOUT, offset));
+        }
+        long tail = 0;
+        for (int shift = 0; offset < size; offset++, shift += Byte.SIZE) {
+            tail |= (key.get(ValueLayout.JAVA_BYTE, offset) & 0xFFL) << shift;
+        }
+        return mix(hash ^ tail);
+    }
+
+    private static long mix(long value) {
+        long h = value * SEED;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        return h ^ (h >>> 32);
+    }
+
+    static final class Builder {
+        private final MemorySegment words;
+        private final long bitCount;
+        private final int hashCount;
+
+        Builder(long expectedKeys, int bitsPerKey) {
+            this.hashCount = BloomFilter.hashCount(bitsPerKey);
+            long wordCount = 0;
+            if (hashCount > 0) {
+                wordCount = (Math.max(1, expectedKeys) * bitsPerKey + Long.SIZE - 1) / Long.SIZE;
+            }
+            this.words = MemorySegment.ofArray(new byte[Math.toIntExact(wordCount * Long.BYTES)]);
+            this.bitCount = wordCount * Long.SIZE;
+        }
+
+        int hashCount() {
+            return hashCount;
+        }
+
+        void add(MemorySegment key) {
+            if (hashCount == 0) {
+                return;
+            }
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                long offset = (bit >>> 6) * Long.BYTES;
+                words.set(ValueLayout.JAVA_LONG_UNALIGNED, offset,
+                        words.get(ValueLayout.JAVA_LONG_UNALIGNED, offset) | (1L << bit));
+            }
+        }
+
+        void writeTo(WritableByteChannel channel) throws IOException {
+            ByteBuffer buffer = words.asByteBuffer();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.vk.itmo.abramovilya;
+
+import java.util.List;
+
+/**
+ * Compaction job: {@code inputs} are merged and the result is placed on {@code outputLevel},
+ * split into tables of about {@code maxTableBytes}.
+ * Inputs are ordered newest first, so that the merge keeps the most recent version of every key.
+ */
+record Compaction(List<SSTable> inputs, int outputLevel, long maxTableBytes) {
+}
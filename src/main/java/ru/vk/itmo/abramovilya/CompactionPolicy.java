@@ -0,0 +1,20 @@
+package ru.vk.itmo.abramovilya;
+
+/**
+ * Decides which tables the background compaction should merge next.
+ */
+interface CompactionPolicy {
+    /**
+     * Picks the next compaction. The result must keep the invariants of {@link TableSet}:
+     * merged level 0 tables must be adjacent in age order, and tables placed on a deeper level
+     * must not overlap the tables that stay there.
+     *
+     * @return compaction to run, or {@code null} if nothing should be compacted
+     */
+    Compaction pick(TableSet tableSet);
+
+    /**
+     * Plans a merge of all tables, or returns {@code null} if the tables are already fully compacted.
+     */
+    Compaction pickAll(TableSet tableSet);
+}
@@ -0,0 +1,42 @@
+package ru.vk.itmo.abramovilya;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Forward cursor over one sorted source of a scan, such as a memtable or a table, restricted to a key range.
+ * The current entry is exposed in place, as offsets into segments owned by the source, so that moving
+ * the cursor does not allocate per entry. The segments and offsets are only valid until the cursor moves.
+ */
+interface EntryCursor {
+    /**
+     * Moves to the first entry whose key is not less than {@code key}, or to the start of the range if it is null.
+     * The key must not be below the range.
+     */
+    void seek(MemorySegment key);
+
+    boolean isValid();
+
+    void next();
+
+    MemorySegment keySegment();
+
+    long keyOffset();
+
+    long keySize();
+
+    MemorySegment valueSegment();
+
+    long valueOffset();
+
+    /**
+     * Returns the size of the value, or {@link SSTable#TOMBSTONE_SIZE} for a tombstone.
+     */
+    int valueSize();
+
+    static int compareKeys(EntryCursor left, EntryCursor right) {
+        return MemorySegmentComparator.compare(
+                left.keySegment(), left.keyOffset(), left.keyOffset() + left.keySize(),
+                right.keySegment(), right.keyOffset(), right.keyOffset() + right.keySize()
+        );
+    }
+}
@@ -1,55 +1,386 @@
 package ru.vk.itmo.abramovilya;
 
+import ru.vk.itmo.Config;
 import ru.vk.itmo.Dao;
 import ru.vk.itmo.Entry;
+import ru.vk.itmo.WriteBatch;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.foreign.MemorySegment;
-import java.lang.foreign.ValueLayout;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Iterator;
-import java.util.concurrent.ConcurrentNavigableMap;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class InMemoryDao implements Dao<MemorySegment, Entry<MemorySegment>> {
-    private final ConcurrentNavigableMap<MemorySegment, Entry<MemorySegment>> map =
-            new ConcurrentSkipListMap<>(InMemoryDao::compareMemorySegments);
+    // Writers wait for the running flush once the active memtable outgrows the threshold this many times
+    private static final int WRITE_STALL_FACTOR = 2;
+    // Busy waits for earlier writes to become visible before yielding the processor
+    private static final int PUBLISH_SPINS = 64;
+
+    private final BlockCache blockCache;
+    private final Storage storage;
+    private final WriteAheadLog wal;
+    private final long flushThresholdBytes;
+    private final int memTableShards;
+    private final CompactionPolicy compactionPolicy;
+    private final ExecutorService flushExecutor =
+            Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "abramovilya-flush"));
+    private final ExecutorService compactionExecutor =
+            Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "abramovilya-compaction"));
+    private final ReadWriteLock upsertLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    // The first memtable has no data to choose split keys after, so it is never sharded
+    private volatile State state = new State(new ShardedMemTable(new MemorySegment[0]), null);
+    // Sequence of the last upsert written to the log, guarded by the log
+    private long lastSequence;
+    // Readers see memtable versions up to this sequence only; it is advanced once a whole write and all
+    // the writes logged before it are applied and committed to the log
+    private volatile long visibleSequence;
+    // Set once a write is left unpublished, so that the writes after it fail instead of waiting for it
+    private volatile boolean publishFailed;
+    private volatile Future<?> lastCompaction;
+    private Future<?> scheduledFlush;
+    // Log of the flushing memtable, accessed by the flush thread only
+    private Path flushingLog;
+    private boolean closed;
+
+    public InMemoryDao(Config config) throws IOException {
+        // A cache of zero bytes would only copy blocks for nothing
+        this.blockCache = config.blockCacheBytes() > 0 ? new BlockCache(config.blockCacheBytes()) : null;
+        this.storage = new Storage(config, blockCache);
+        this.flushThresholdBytes = config.flushThresholdBytes();
+        this.memTableShards = config.memTableShards();
+        this.compactionPolicy = switch (config.compactionStyle()) {
+            case SIZE_TIERED -> new SizeTieredCompactionPolicy();
+            case LEVELED -> new LeveledCompactionPolicy(flushThresholdBytes);
+        };
+        recover(config.basePath());
+        this.wal = new WriteAheadLog(config.basePath(), config.durability(), config.walSyncIntervalMillis());
+    }
 
     @Override
     public Iterator<Entry<MemorySegment>> get(MemorySegment from, MemorySegment to) {
-        ConcurrentNavigableMap<MemorySegment, Entry<MemorySegment>> subMap;
-        if (from == null && to == null) {
-            subMap = map;
-        } else if (from == null) {
-            subMap = map.headMap(to);
-        } else if (to == null) {
-            subMap = map.tailMap(from);
-        } else {
-            subMap = map.subMap(from, to);
-        }
-        return subMap.values().iterator();
+        return snapshot().get(from, to);
+    }
+
+    @Override
+    public Iterator<Entry<MemorySegment>> scanPrefix(MemorySegment prefix) {
+        return snapshot().scanPrefix(prefix);
+    }
+
+    @Override
+    public MemorySegmentCursor cursor(MemorySegment from, MemorySegment to) {
+        return takeSnapshot().cursor(from, to);
+    }
+
+    @Override
+    public Iterator<Entry<MemorySegment>> getDescending(MemorySegment from, MemorySegment to) {
+        return snapshot().getDescending(from, to);
     }
 
     @Override
     public void upsert(Entry<MemorySegment> entry) {
-        map.put(entry.key(), entry);
+        apply(List.of(entry), 1);
+    }
+
+    /**
+     * Applies the batch atomically: it is logged as a single frame and becomes visible to readers at once.
+     */
+    @Override
+    public void write(WriteBatch<Entry<MemorySegment>> batch) {
+        if (!batch.isEmpty()) {
+            apply(batch, batch.size());
+        }
+    }
+
+    /**
+     * Logs the entries and claims their sequences under the log lock, then applies them to the memtable
+     * outside of it: the memtable orders the versions of a key by sequence, which is the log order,
+     * so concurrent writers only contend when they touch the same keys or shards.
+     */
+    private void apply(Iterable<Entry<MemorySegment>> entries, int count) {
+        long ticket;
+        long firstSequence;
+        upsertLock.readLock().lock();
+        try {
+            synchronized (wal) {
+                ticket = wal.append(entries);
+                firstSequence = lastSequence + 1;
+                lastSequence += count;
+            }
+        } catch (IOException e) {
+            upsertLock.readLock().unlock();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            upsertLock.readLock().unlock();
+            throw e;
+        }
+        long memTableSize = 0;
+        boolean applied = false;
+        try {
+            ShardedMemTable memTable = state.memTable;
+            long sequence = firstSequence;
+            for (Entry<MemorySegment> entry : entries) {
+                memTableSize = memTable.upsert(entry, sequence++);
+            }
+            applied = true;
+        } finally {
+            upsertLock.readLock().unlock();
+            if (applied) {
+                commit(ticket, firstSequence, firstSequence + count - 1);
+            } else {
+                // A part of the write is in the memtable already, so its sequences can never be published
+                publishFailed = true;
+                wal.fail();
+            }
+        }
+        if (memTableSize >= flushThresholdBytes) {
+            Future<?> flush = scheduleFlush();
+            if (memTableSize >= WRITE_STALL_FACTOR * flushThresholdBytes) {
+                await(flush);
+            }
+        }
+    }
+
+    /**
+     * Waits until the log frame of the write is persisted as the durability setting requires, and only then
+     * makes sequences {@code first} to {@code last} visible, once the writes logged before are, so that readers
+     * never see a write that a crash may still lose, nor a write without the earlier ones.
+     * A write the log failed to persist stays invisible and fails the writes waiting for it.
+     * A memtable may be swapped out before its writes are visible, but its log is synced on the way,
+     * so whatever the flushed table shows is durable already.
+     */
+    private void commit(long ticket, long first, long last) {
+        try {
+            wal.commit(ticket);
+        } catch (IOException e) {
+            publishFailed = true;
+            throw new UncheckedIOException(e);
+        }
+        for (int spins = 0; visibleSequence != first - 1; spins++) {
+            if (publishFailed) {
+                throw new UncheckedIOException(new IOException("An earlier write failed, so this one stays invisible"));
+            }
+            if (spins < PUBLISH_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        visibleSequence = last;
     }
 
     @Override
     public Entry<MemorySegment> get(MemorySegment key) {
-        return map.get(key);
-    }
-
-    private static int compareMemorySegments(MemorySegment segment1, MemorySegment segment2) {
-        long offset = segment1.mismatch(segment2);
-        if (offset == -1) {
-            return 0;
-        } else if (offset == segment1.byteSize()) {
-            return -1;
-        } else if (offset == segment2.byteSize()) {
-            return 1;
-        }
-        return Byte.compare(
-                segment1.get(ValueLayout.JAVA_BYTE, offset),
-                segment2.get(ValueLayout.JAVA_BYTE, offset)
-        );
+        return snapshot().get(key);
+    }
+
+    @Override
+    public List<Entry<MemorySegment>> getAll(Collection<MemorySegment> keys) {
+        return snapshot().getAll(keys);
+    }
+
+    /**
+     * Returns a read-only view of the current data that later writes do not affect.
+     */
+    @Override
+    public Dao<MemorySegment, Entry<MemorySegment>> snapshot() {
+        return takeSnapshot();
+    }
+
+    Snapshot takeSnapshot() {
+        State current = state;
+        TableSet tableSet = storage.tableSet();
+        // Read last, so that a write it covers is either in the memtables at hand or wholly in the tables
+        long sequence = visibleSequence;
+        return new Snapshot(current.memTable, current.flushingMemTable, tableSet, sequence);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        try {
+            flushExecutor.submit(() -> {
+                flushMemTable(true);
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for flush", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Flush failed", e.getCause());
+        }
+    }
+
+    /**
+     * Schedules a full compaction in the background.
+     */
+    @Override
+    public void compact() {
+        lastCompaction = compactionExecutor.submit(() -> {
+            Compaction compaction = compactionPolicy.pickAll(storage.tableSet());
+            if (compaction != null) {
+                storage.compact(compaction);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Returns the number of compressed SSTable block reads served by the block cache.
+     */
+    public long blockCacheHitCount() {
+        return blockCache == null ? 0 : blockCache.hitCount();
+    }
+
+    /**
+     * Returns the number of compressed SSTable block reads that missed the block cache.
+     */
+    public long blockCacheMissCount() {
+        return blockCache == null ? 0 : blockCache.missCount();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+        } finally {
+            // A failed Dao does not flush, but still stops its threads and closes its log
+            shutdown(flushExecutor);
+            shutdown(compactionExecutor);
+            wal.close();
+        }
+        Future<?> compaction = lastCompaction;
+        if (compaction != null) {
+            try {
+                compaction.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while closing", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Compaction failed", e.getCause());
+            }
+        }
+    }
+
+    private static void shutdown(ExecutorService executor) throws IOException {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                throw new IOException("Background work did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing", e);
+        }
+    }
+
+    private void scheduleCompaction() {
+        if (compactionScheduled.compareAndSet(false, true)) {
+            lastCompaction = compactionExecutor.submit(() -> {
+                compactionScheduled.set(false);
+                for (Compaction compaction = compactionPolicy.pick(storage.tableSet());
+                     compaction != null;
+                     compaction = compactionPolicy.pick(storage.tableSet())) {
+                    storage.compact(compaction);
+                }
+                return null;
+            });
+        }
+    }
+
+    private synchronized Future<?> scheduleFlush() {
+        Future<?> flush = scheduledFlush;
+        if (flush == null || flush.isDone()) {
+            flush = flushExecutor.submit(() -> {
+                flushMemTable(false);
+                return null;
+            });
+            scheduledFlush = flush;
+        }
+        return flush;
+    }
+
+    /**
+     * Swaps the active memtable out and writes it to disk. Runs on the flush thread only.
+     * A memtable left over from a failed attempt is written first.
+     * Unless {@code force} is set, a memtable that is still below the threshold is left alone.
+     */
+    private void flushMemTable(boolean force) throws IOException {
+        State current = state;
+        if (current.flushingMemTable == null) {
+            if (current.memTable.isEmpty() || (!force && current.memTable.byteSize() < flushThresholdBytes)) {
+                return;
+            }
+            upsertLock.writeLock().lock();
+            try {
+                flushingLog = wal.rotate();
+                ShardedMemTable full = state.memTable;
+                current = new State(new ShardedMemTable(full.splitKeys(memTableShards - 1)), full);
+                state = current;
+            } finally {
+                upsertLock.writeLock().unlock();
+            }
+        }
+        ShardedMemTable flushing = current.flushingMemTable;
+        storage.flush(flushing.entries(), flushing.size());
+        Files.delete(flushingLog);
+        flushingLog = null;
+
+        upsertLock.writeLock().lock();
+        try {
+            state = new State(state.memTable, null);
+        } finally {
+            upsertLock.writeLock().unlock();
+        }
+        scheduleCompaction();
+    }
+
+    /**
+     * Persists upserts left in write-ahead logs by a previous run that did not close cleanly.
+     */
+    private void recover(Path basePath) throws IOException {
+        List<Path> logs = WriteAheadLog.logs(basePath);
+        MemTable recovered = new MemTable();
+        for (Path log : logs) {
+            WriteAheadLog.replay(log, entry -> recovered.upsert(entry, 0));
+        }
+        if (!recovered.isEmpty()) {
+            storage.flush(recovered.entries(), recovered.size());
+        }
+        for (Path log : logs) {
+            Files.delete(log);
+        }
+    }
+
+    private static void await(Future<?> flush) {
+        try {
+            flush.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for flush", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+            throw new IllegalStateException("Flush failed", e.getCause());
+        }
+    }
+
+    private record State(ShardedMemTable memTable, ShardedMemTable flushingMemTable) {
     }
 }
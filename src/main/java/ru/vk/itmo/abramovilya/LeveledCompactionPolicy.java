@@ -0,0 +1,102 @@
+package ru.vk.itmo.abramovilya;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps deeper levels free of overlapping tables, each level allowed {@value #FANOUT} times more data than
+ * the one above it. Once level 0 collects {@value #LEVEL0_COMPACTION_TRIGGER} tables, all of them are merged
+ * into level 1; once a deeper level outgrows its budget, one of its tables is merged into the next level.
+ * Only the tables whose key ranges intersect the input are rewritten, and the most overfull level goes first.
+ * Almost all data ends up on the last level, so obsolete versions take about 1 / {@value #FANOUT} of the space.
+ * Runs on the compaction thread only.
+ */
+final class LeveledCompactionPolicy implements CompactionPolicy {
+    static final int LEVEL0_COMPACTION_TRIGGER = 4;
+    static final int FANOUT = 10;
+
+    private final long baseLevelBytes;
+    private final long targetTableBytes;
+    // Last key compacted out of a level, so that successive compactions walk over the whole key range
+    private final Map<Integer, MemorySegment> compactionPointers = new HashMap<>();
+
+    LeveledCompactionPolicy(long flushThresholdBytes) {
+        this.baseLevelBytes = LEVEL0_COMPACTION_TRIGGER * flushThresholdBytes;
+        this.targetTableBytes = flushThresholdBytes;
+    }
+
+    @Override
+    public Compaction pick(TableSet tableSet) {
+        int bestLevel = -1;
+        double bestScore = 1;
+        for (int level = 0; level < tableSet.levelCount(); level++) {
+            double score = level == 0
+                    ? (double) tableSet.level(0).size() / LEVEL0_COMPACTION_TRIGGER
+                    : (double) tableSet.levelSize(level) / maxLevelBytes(level);
+            if (score >= bestScore) {
+                bestLevel = level;
+                bestScore = score;
+            }
+        }
+        if (bestLevel < 0) {
+            return null;
+        }
+
+        List<SSTable> picked = bestLevel == 0
+                ? tableSet.level(0)
+                : List.of(pickTable(bestLevel, tableSet.level(bestLevel)));
+        List<SSTable> inputs = new ArrayList<>(picked);
+        inputs.addAll(TableSet.overlapping(
+                tableSet.level(bestLevel + 1),
+                TableSet.minKey(picked),
+                TableSet.maxKey(picked)
+        ));
+        if (bestLevel > 0) {
+            compactionPointers.put(bestLevel, copy(picked.getFirst().lastKey()));
+        }
+        return new Compaction(inputs, bestLevel + 1, targetTableBytes);
+    }
+
+    @Override
+    public Compaction pickAll(TableSet tableSet) {
+        int nonEmptyLevels = 0;
+        for (int level = 0; level < tableSet.levelCount(); level++) {
+            if (!tableSet.level(level).isEmpty()) {
+                nonEmptyLevels++;
+            }
+        }
+        if (nonEmptyLevels == 0
+                || (nonEmptyLevels == 1 && tableSet.level(0).isEmpty() && !tableSet.hasTombstones())) {
+            return null;
+        }
+        return new Compaction(tableSet.all(), Math.max(1, tableSet.levelCount() - 1), targetTableBytes);
+    }
+
+    private long maxLevelBytes(int level) {
+        long bytes = baseLevelBytes;
+        for (int i = 1; i < level; i++) {
+            bytes *= FANOUT;
+        }
+        return bytes;
+    }
+
+    private SSTable pickTable(int level, List<SSTable> tables) {
+        MemorySegment pointer = compactionPointers.get(level);
+        if (pointer != null) {
+            for (SSTable ssTable : tables) {
+                if (MemorySegmentComparator.compare(ssTable.firstKey(), pointer) > 0) {
+                    return ssTable;
+                }
+            }
+        }
+        return tables.getFirst();
+    }
+
+    private static MemorySegment copy(MemorySegment key) {
+        return MemorySegment.ofArray(key.toArray(ValueLayout.JAVA_BYTE));
+    }
+}
@@ -0,0 +1,153 @@
+package ru.vk.itmo.abramovilya;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * LZ77-family block codec in the spirit of LZ4: greedy matching over a hash table of 4-byte sequences,
+ * no entropy coding, so decompression is little more than a series of array copies.
+ * The output is a sequence of
+ * <pre>
+ * token:byte literalLength:byte* literals matchOffset:short matchLength:byte*
+ * </pre>
+ * where the high and low halves of the token hold the literal length and the match length minus
+ * {@value #MIN_MATCH}; a half equal to 15 is continued by bytes that are added up while they are 255.
+ * The last sequence carries literals only and ends the input.
+ */
+final class LzCodec {
+    private static final int MIN_MATCH = 4;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int HASH_BITS = 12;
+    private static final int LENGTH_MASK = 0xF;
+
+    private LzCodec() {
+    }
+
+    static int maxCompressedSize(long sourceSize) {
+        return (int) (sourceSize + sourceSize / 255 + 16);
+    }
+
+    /**
+     * Compresses {@code source} into {@code destination}, which must hold {@link #maxCompressedSize} bytes,
+     * and returns the compressed size.
+     */
+    static int compress(MemorySegment source, byte[] destination) {
+        int length = (int) source.byteSize();
+        // Positions are stored plus one, so that zero means an empty slot
+        int[] table = new int[1 << HASH_BITS];
+        int position = 0;
+        int anchor = 0;
+        int out = 0;
+        while (position + MIN_MATCH <= length) {
+            int sequence = source.get(ValueLayout.JAVA_INT_UNALIGNED, position);
+            int hash = (sequence * 0x9E37_79B1) >>> (Integer.SIZE - HASH_BITS);
+            int candidate = table[hash] - 1;
+            table[hash] = position + 1;
+            if (candidate < 0
+                    || position - candidate > MAX_OFFSET
+                    || source.get(ValueLayout.JAVA_INT_UNALIGNED, candidate) != sequence) {
+                position++;
+                continue;
+            }
+            int matchLength = MIN_MATCH;
+            while (position + matchLength < length
+                    && source.get(ValueLayout.JAVA_BYTE, candidate + matchLength)
+                    == source.get(ValueLayout.JAVA_BYTE, position + matchLength)) {
+                matchLength++;
+            }
+            int token = out++;
+            out = writeLiterals(source, anchor, position - anchor, destination, token, out);
+            int offset = position - candidate;
+            destination[out++] = (byte) offset;
+            destination[out++] = (byte) (offset >>> 8);
+            int encodedMatchLength = matchLength - MIN_MATCH;
+            destination[token] |= (byte) Math.min(encodedMatchLength, LENGTH_MASK);
+            if (encodedMatchLength >= LENGTH_MASK) {
+                out = writeLength(encodedMatchLength - LENGTH_MASK, destination, out);
+            }
+            position += matchLength;
+            anchor = position;
+        }
+        int token = out++;
+        return writeLiterals(source, anchor, length - anchor, destination, token, out);
+    }
+
+    /**
+     * Decompresses {@code source} into {@code destination}, which must be exactly as long as the original data.
+     */
+    static void decompress(MemorySegment source, byte[] destination) {
+        long length = source.byteSize();
+        long in = 0;
+        int out = 0;
+        while (true) {
+            int token = source.get(ValueLayout.JAVA_BYTE, in++) & 0xFF;
+            int literalLength = token >>> 4;
+            if (literalLength == LENGTH_MASK) {
+                int next;
+                do {
+                    next = source.get(ValueLayout.JAVA_BYTE, in++) & 0xFF;
+                    literalLength += next;
+                } while (next == 0xFF);
+            }
+            MemorySegment.copy(source, ValueLayout.JAVA_BYTE, in, destination, out, literalLength);
+            in += literalLength;
+            out += literalLength;
+            if (in == length) {
+                break;
+            }
+            int offset = (source.get(ValueLayout.JAVA_BYTE, in) & 0xFF)
+                    | (source.get(ValueLayout.JAVA_BYTE, in + 1) & 0xFF) << 8;
+            in += 2;
+            int matchLength = token & LENGTH_MASK;
+            if (matchLength == LENGTH_MASK) {
+                int next;
+                do {
+                    next = source.get(ValueLayout.JAVA_BYTE, in++) & 0xFF;
+                    matchLength += next;
+                } while (next == 0xFF);
+            }
+            matchLength += MIN_MATCH;
+            int from = out - offset;
+            if (offset >= matchLength) {
+                System.arraycopy(destination, from, destination, out, matchLength);
+            } else {
+                // The match overlaps the bytes it produces, which repeats the last offset bytes
+                for (int i = 0; i < matchLength; i++) {
+                    destination[out + i] = destination[from + i];
+                }
+            }
+            out += matchLength;
+        }
+        if (out != destination.length) {
+            throw new IllegalStateException("Corrupted block: " + out + " bytes instead of " + destination.length);
+        }
+    }
+
+    private static int writeLiterals(
+            MemorySegment source,
+            int from,
+            int literalLength,
+            byte[] destination,
+            int token,
+            int out
+    ) {
+        destination[token] = (byte) (Math.min(literalLength, LENGTH_MASK) << 4);
+        int position = out;
+        if (literalLength >= LENGTH_MASK) {
+            position = writeLength(literalLength - LENGTH_MASK, destination, position);
+        }
+        MemorySegment.copy(source, ValueLayout.JAVA_BYTE, from, destination, position, literalLength);
+        return position + literalLength;
+    }
+
+    private static int writeLength(int length, byte[] destination, int out) {
+        int remaining = length;
+        int position = out;
+        while (remaining >= 0xFF) {
+            destination[position++] = (byte) 0xFF;
+            remaining -= 0xFF;
+        }
+        destination[position++] = (byte) remaining;
+        return position;
+    }
+}
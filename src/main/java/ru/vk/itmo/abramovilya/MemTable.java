@@ -0,0 +1,671 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.BaseEntry;
+import ru.vk.itmo.Entry;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sorted in-memory table built as a lock-free skip list that lives entirely in off-heap slabs,
+ * so it holds no heap objects per entry and does not keep caller memory alive.
+ * Nodes and value records are addressed by {@link SlabAllocator} addresses:
+ * <pre>
+ * node:  valueRef:long keySize:int height:int keyPrefix:long next:long[height] key
+ * value: sequence:long previousRef:long valueSize:int value
+ * </pre>
+ * A tombstone has a value size of -1. The key prefix is {@link MemorySegmentComparator#prefix}, so most hops
+ * of a search are decided by a single comparison of two longs without touching the key bytes.
+ * The head node sits at address 0, which doubles as the null link.
+ * Nodes are never removed: an upsert of a present key links a new value record into the chain of the previous
+ * ones, so an insert only needs a CAS per linked level. Every version is stamped with the sequence number
+ * of its upsert, and readers pass the greatest sequence they may see: later versions are skipped, and a key
+ * without an earlier version is treated as absent. That lets a writer publish several upserts at once.
+ * Chains are kept in descending sequence order, so writers of a key need not arrive in sequence order.
+ * Value records are 8-byte aligned, so their links can be read and swapped atomically.
+ */
+final class MemTable {
+    private static final int MAX_HEIGHT = 16;
+    // Nodes to choose every split key from, so that parts come out of about the same size
+    private static final int SPLIT_SAMPLES_PER_KEY = 8;
+    private static final long NIL = 0;
+    private static final long VALUE_REF_OFFSET = 0;
+    private static final long KEY_SIZE_OFFSET = 8;
+    private static final long HEIGHT_OFFSET = 12;
+    private static final long PREFIX_OFFSET = 16;
+    private static final long NEXT_OFFSET = 24;
+    private static final long PREVIOUS_REF_OFFSET = Long.BYTES;
+    private static final long VALUE_SIZE_OFFSET = 2 * Long.BYTES;
+    private static final long VALUE_HEADER_SIZE = VALUE_SIZE_OFFSET + Integer.BYTES;
+    private static final VarHandle LONG_HANDLE = MethodHandles.memorySegmentViewVarHandle(ValueLayout.JAVA_LONG);
+
+    private final SlabAllocator allocator = new SlabAllocator();
+    private final long head = allocator.allocate(NEXT_OFFSET + (long) MAX_HEIGHT * Long.BYTES);
+    private final AtomicLong size = new AtomicLong();
+    private volatile boolean hasTombstones;
+
+    MemTable() {
+        MemorySegment slab = allocator.slab(head);
+        slab.set(ValueLayout.JAVA_INT, SlabAllocator.offset(head) + HEIGHT_OFFSET, MAX_HEIGHT);
+    }
+
+    /**
+     * Adds a version of the entry stamped with {@code sequence} and returns the table size in bytes after
+     * the change. Of the versions with equal sequences, the one added last wins.
+     * Replaced versions keep their slab space until the table is dropped, so they count towards the size.
+     */
+    long upsert(Entry<MemorySegment> entry, long sequence) {
+        MemorySegment key = entry.key();
+        MemorySegment value = entry.value();
+        if (value == null && !hasTombstones) {
+            hasTombstones = true;
+        }
+        long keyPrefix = MemorySegmentComparator.prefix(key);
+        long[] preds = new long[MAX_HEIGHT];
+        long[] succs = new long[MAX_HEIGHT];
+        long node = NIL;
+        while (true) {
+            long found = findPath(key, keyPrefix, preds, succs);
+            if (found != NIL) {
+                linkValueRecord(found, newValueRecord(sequence, value), sequence);
+                return allocator.allocatedBytes();
+            }
+            if (node == NIL) {
+                node = newNode(key, keyPrefix, sequence, value);
+            }
+            int height = height(node);
+            for (int level = 0; level < height; level++) {
+                setNext(node, level, succs[level]);
+            }
+            if (casNext(preds[0], 0, succs[0], node)) {
+                linkUpperLevels(node, height, key, keyPrefix, preds, succs);
+                size.incrementAndGet();
+                return allocator.allocatedBytes();
+            }
+        }
+    }
+
+    /**
+     * Returns the newest version of {@code key} with a sequence not greater than {@code sequence}, or null.
+     */
+    Entry<MemorySegment> get(MemorySegment key, long sequence) {
+        long keyPrefix = MemorySegmentComparator.prefix(key);
+        long node = lowerBound(key, keyPrefix);
+        if (node == NIL || compareKey(node, key, keyPrefix) != 0) {
+            return null;
+        }
+        return entryAt(node, sequence);
+    }
+
+    /**
+     * Looks up ascending {@code keys} in a single pass, filling the empty slots of {@code results}
+     * with versions up to {@code sequence}.
+     * Every search starts from the path of the previous one rather than from the head.
+     */
+    void getAll(MemorySegment[] keys, Entry<MemorySegment>[] results, long sequence) {
+        getAll(keys, results, 0, keys.length, sequence);
+    }
+
+    /**
+     * Same as {@link #getAll(MemorySegment[], Entry[], long)} for {@code keys[from, to)} only.
+     */
+    void getAll(MemorySegment[] keys, Entry<MemorySegment>[] results, int from, int to, long sequence) {
+        long[] preds = new long[MAX_HEIGHT];
+        Arrays.fill(preds, head);
+        for (int i = from; i < to; i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            MemorySegment key = keys[i];
+            long keyPrefix = MemorySegmentComparator.prefix(key);
+            long pred = head;
+            long next = NIL;
+            boolean moved = false;
+            for (int level = MAX_HEIGHT - 1; level >= 0; level--) {
+                // A predecessor that moved on the level above is past the previous path on this level
+                long node = moved ? pred : preds[level];
+                next = next(node, level);
+                while (next != NIL && compareKey(next, key, keyPrefix) < 0) {
+                    node = next;
+                    next = next(node, level);
+                }
+                moved = node != preds[level];
+                preds[level] = node;
+                pred = node;
+            }
+            if (next != NIL && compareKey(next, key, keyPrefix) == 0) {
+                results[i] = entryAt(next, sequence);
+            }
+        }
+    }
+
+    /**
+     * Returns the newest versions up to {@code sequence} of the keys in {@code [from, to)}.
+     */
+    Iterator<Entry<MemorySegment>> get(MemorySegment from, MemorySegment to, long sequence) {
+        long first = from == null ? next(head, 0) : lowerBound(from, MemorySegmentComparator.prefix(from));
+        return new NodeIterator(first, to, sequence);
+    }
+
+    /**
+     * Returns the newest versions up to {@code sequence} of the keys in {@code [from, to)}, the last key first.
+     * Nodes have no backward links, so every step back is a search for the predecessor of the current key.
+     */
+    Iterator<Entry<MemorySegment>> getDescending(MemorySegment from, MemorySegment to, long sequence) {
+        long last = to == null ? lastNode() : lastBefore(to, MemorySegmentComparator.prefix(to));
+        return new DescendingNodeIterator(last, from, sequence);
+    }
+
+    /**
+     * Returns a cursor over the newest versions up to {@code sequence} of the keys in {@code [from, to)}.
+     */
+    EntryCursor cursor(MemorySegment from, MemorySegment to, long sequence) {
+        return new NodeCursor(from, to, sequence);
+    }
+
+    /**
+     * Returns the newest version of every key.
+     */
+    Iterable<Entry<MemorySegment>> entries() {
+        return () -> get(null, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns up to {@code count} keys that split the table into parts of about the same number of keys,
+     * copied to the heap. Nodes of an upper level are a uniform sample of all keys, so only the highest level
+     * with enough nodes to choose from is walked.
+     */
+    MemorySegment[] splitKeys(int count) {
+        if (count <= 0) {
+            return new MemorySegment[0];
+        }
+        int level = MAX_HEIGHT - 1;
+        int nodeCount = levelSize(level);
+        while (level > 0 && nodeCount < count * SPLIT_SAMPLES_PER_KEY) {
+            level--;
+            nodeCount = levelSize(level);
+        }
+        int splitCount = Math.min(count, nodeCount - 1);
+        if (splitCount <= 0) {
+            return new MemorySegment[0];
+        }
+        MemorySegment[] splitKeys = new MemorySegment[splitCount];
+        long node = next(head, level);
+        int index = 0;
+        for (int i = 0; i < splitCount; i++) {
+            // Node number (i + 1) * nodeCount / (splitCount + 1) starts part i + 1
+            int target = (int) ((long) (i + 1) * nodeCount / (splitCount + 1));
+            for (; index < target; index++) {
+                node = next(node, level);
+            }
+            splitKeys[i] = MemorySegment.ofArray(key(node).toArray(ValueLayout.JAVA_BYTE));
+        }
+        return splitKeys;
+    }
+
+    private int levelSize(int level) {
+        int count = 0;
+        for (long node = next(head, level); node != NIL; node = next(node, level)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of distinct keys.
+     */
+    long size() {
+        return size.get();
+    }
+
+    boolean hasTombstones() {
+        return hasTombstones;
+    }
+
+    boolean isEmpty() {
+        return next(head, 0) == NIL;
+    }
+
+    long byteSize() {
+        return allocator.allocatedBytes();
+    }
+
+    private void linkUpperLevels(
+            long node,
+            int height,
+            MemorySegment key,
+            long keyPrefix,
+            long[] preds,
+            long[] succs
+    ) {
+        for (int level = 1; level < height; level++) {
+            while (!casNext(preds[level], level, succs[level], node)) {
+                findPath(key, keyPrefix, preds, succs);
+                setNext(node, level, succs[level]);
+            }
+        }
+    }
+
+    /**
+     * Fills the last node before {@code key} and the one after it on every level,
+     * and returns the node holding {@code key}, or {@link #NIL}.
+     */
+    private long findPath(MemorySegment key, long keyPrefix, long[] preds, long[] succs) {
+        long pred = head;
+        for (int level = MAX_HEIGHT - 1; level >= 0; level--) {
+            long next = next(pred, level);
+            while (next != NIL && compareKey(next, key, keyPrefix) < 0) {
+                pred = next;
+                next = next(pred, level);
+            }
+            preds[level] = pred;
+            succs[level] = next;
+        }
+        return succs[0] != NIL && compareKey(succs[0], key, keyPrefix) == 0 ? succs[0] : NIL;
+    }
+
+    /**
+     * Returns the first node whose key is not less than {@code key}, or {@link #NIL}.
+     */
+    private long lowerBound(MemorySegment key, long keyPrefix) {
+        long pred = head;
+        long next = NIL;
+        for (int level = MAX_HEIGHT - 1; level >= 0; level--) {
+            next = next(pred, level);
+            while (next != NIL && compareKey(next, key, keyPrefix) < 0) {
+                pred = next;
+                next = next(pred, level);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Returns the last node whose key is less than {@code key}, or {@link #NIL} if there is none.
+     */
+    private long lastBefore(MemorySegment key, long keyPrefix) {
+        long pred = head;
+        for (int level = MAX_HEIGHT - 1; level >= 0; level--) {
+            long next = next(pred, level);
+            while (next != NIL && compareKey(next, key, keyPrefix) < 0) {
+                pred = next;
+                next = next(pred, level);
+            }
+        }
+        // The head is at NIL
+        return pred;
+    }
+
+    private long lastNode() {
+        long node = head;
+        for (int level = MAX_HEIGHT - 1; level >= 0; level--) {
+            for (long next = next(node, level); next != NIL; next = next(node, level)) {
+                node = next;
+            }
+        }
+        return node;
+    }
+
+    private long newNode(MemorySegment key, long keyPrefix, long sequence, MemorySegment value) {
+        int height = randomHeight();
+        long keyOffset = NEXT_OFFSET + (long) height * Long.BYTES;
+        long valueOffset = (keyOffset + key.byteSize() + Long.BYTES - 1) & -Long.BYTES;
+        long node = allocator.allocate(valueOffset + valueRecordSize(value));
+        MemorySegment slab = allocator.slab(node);
+        long offset = SlabAllocator.offset(node);
+        slab.set(ValueLayout.JAVA_INT, offset + KEY_SIZE_OFFSET, (int) key.byteSize());
+        slab.set(ValueLayout.JAVA_INT, offset + HEIGHT_OFFSET, height);
+        slab.set(ValueLayout.JAVA_LONG, offset + PREFIX_OFFSET, keyPrefix);
+        MemorySegment.copy(key, 0, slab, offset + keyOffset, key.byteSize());
+        writeValueRecord(slab, offset + valueOffset, sequence, value);
+        slab.set(ValueLayout.JAVA_LONG, offset + VALUE_REF_OFFSET, node + valueOffset);
+        return node;
+    }
+
+    private long newValueRecord(long sequence, MemorySegment value) {
+        long record = allocator.allocate(valueRecordSize(value));
+        writeValueRecord(allocator.slab(record), SlabAllocator.offset(record), sequence, value);
+        return record;
+    }
+
+    private static long valueRecordSize(MemorySegment value) {
+        return VALUE_HEADER_SIZE + (value == null ? 0 : value.byteSize());
+    }
+
+    /**
+     * Links the record in front of the first version of the node with a sequence not greater than its own.
+     * Writers of a key usually arrive in sequence order and just push to the front of the chain.
+     */
+    private void linkValueRecord(long node, long record, long sequence) {
+        while (true) {
+            long next = valueRef(node);
+            // A node is created with a version, so its chain is never empty
+            if (sequence(next) <= sequence) {
+                setPreviousRef(record, next);
+                if (casValueRef(node, next, record)) {
+                    return;
+                }
+                continue;
+            }
+            long pred;
+            do {
+                pred = next;
+                next = previousRef(pred);
+            } while (next != NIL && sequence(next) > sequence);
+            setPreviousRef(record, next);
+            if (casPreviousRef(pred, next, record)) {
+                return;
+            }
+        }
+    }
+
+    private static void writeValueRecord(MemorySegment slab, long offset, long sequence, MemorySegment value) {
+        slab.set(ValueLayout.JAVA_LONG_UNALIGNED, offset, sequence);
+        slab.set(ValueLayout.JAVA_LONG_UNALIGNED, offset + PREVIOUS_REF_OFFSET, NIL);
+        if (value == null) {
+            slab.set(ValueLayout.JAVA_INT_UNALIGNED, offset + VALUE_SIZE_OFFSET, SSTable.TOMBSTONE_SIZE);
+        } else {
+            slab.set(ValueLayout.JAVA_INT_UNALIGNED, offset + VALUE_SIZE_OFFSET, (int) value.byteSize());
+            MemorySegment.copy(value, 0, slab, offset + VALUE_HEADER_SIZE, value.byteSize());
+        }
+    }
+
+    private static int randomHeight() {
+        int random = ThreadLocalRandom.current().nextInt();
+        int height = 1;
+        while (height < MAX_HEIGHT && (random & 3) == 0) {
+            height++;
+            random >>>= 2;
+        }
+        return height;
+    }
+
+    /**
+     * Returns the newest version of the node with a sequence not greater than {@code sequence}, or null.
+     */
+    private Entry<MemorySegment> entryAt(long node, long sequence) {
+        long record = visibleRecord(node, sequence);
+        if (record == NIL) {
+            return null;
+        }
+        MemorySegment recordSlab = allocator.slab(record);
+        long recordOffset = SlabAllocator.offset(record);
+        int valueSize = recordSlab.get(ValueLayout.JAVA_INT_UNALIGNED, recordOffset + VALUE_SIZE_OFFSET);
+        return new BaseEntry<>(
+                key(node),
+                valueSize == SSTable.TOMBSTONE_SIZE
+                        ? null
+                        : recordSlab.asSlice(recordOffset + VALUE_HEADER_SIZE, valueSize)
+        );
+    }
+
+    /**
+     * Returns the newest value record of the node with a sequence not greater than {@code sequence},
+     * or {@link #NIL}.
+     */
+    private long visibleRecord(long node, long sequence) {
+        long record = valueRef(node);
+        // A record is never the head node, so address 0 ends the chain
+        while (record != NIL && sequence(record) > sequence) {
+            record = previousRef(record);
+        }
+        return record;
+    }
+
+    private MemorySegment key(long node) {
+        MemorySegment slab = allocator.slab(node);
+        long offset = SlabAllocator.offset(node);
+        int keySize = slab.get(ValueLayout.JAVA_INT, offset + KEY_SIZE_OFFSET);
+        return slab.asSlice(keyOffset(node), keySize);
+    }
+
+    private int compareKey(long node, MemorySegment key, long keyPrefix) {
+        MemorySegment slab = allocator.slab(node);
+        long offset = SlabAllocator.offset(node);
+        int compare = Long.compareUnsigned(slab.get(ValueLayout.JAVA_LONG, offset + PREFIX_OFFSET), keyPrefix);
+        if (compare != 0) {
+            return compare;
+        }
+        int keySize = slab.get(ValueLayout.JAVA_INT, offset + KEY_SIZE_OFFSET);
+        if (keySize <= MemorySegmentComparator.PREFIX_SIZE || key.byteSize() <= MemorySegmentComparator.PREFIX_SIZE) {
+            // The shorter key is a prefix of the other one
+            return Long.compare(keySize, key.byteSize());
+        }
+        long keyOffset = keyOffset(node);
+        return MemorySegmentComparator.compare(
+                slab, keyOffset + MemorySegmentComparator.PREFIX_SIZE, keyOffset + keySize,
+                key, MemorySegmentComparator.PREFIX_SIZE, key.byteSize()
+        );
+    }
+
+    private long keyPrefix(long node) {
+        return allocator.slab(node).get(ValueLayout.JAVA_LONG, SlabAllocator.offset(node) + PREFIX_OFFSET);
+    }
+
+    private long keyOffset(long node) {
+        return SlabAllocator.offset(node) + NEXT_OFFSET + (long) height(node) * Long.BYTES;
+    }
+
+    private int height(long node) {
+        return allocator.slab(node).get(ValueLayout.JAVA_INT, SlabAllocator.offset(node) + HEIGHT_OFFSET);
+    }
+
+    private long next(long node, int level) {
+        return (long) LONG_HANDLE.getVolatile(allocator.slab(node), nextOffset(node, level));
+    }
+
+    private void setNext(long node, int level, long next) {
+        LONG_HANDLE.setVolatile(allocator.slab(node), nextOffset(node, level), next);
+    }
+
+    private boolean casNext(long node, int level, long expected, long next) {
+        return LONG_HANDLE.compareAndSet(allocator.slab(node), nextOffset(node, level), expected, next);
+    }
+
+    private long valueRef(long node) {
+        return (long) LONG_HANDLE.getVolatile(allocator.slab(node), SlabAllocator.offset(node) + VALUE_REF_OFFSET);
+    }
+
+    private boolean casValueRef(long node, long expected, long record) {
+        return LONG_HANDLE.compareAndSet(
+                allocator.slab(node), SlabAllocator.offset(node) + VALUE_REF_OFFSET, expected, record);
+    }
+
+    private long sequence(long record) {
+        return allocator.slab(record).get(ValueLayout.JAVA_LONG, SlabAllocator.offset(record));
+    }
+
+    private long previousRef(long record) {
+        return (long) LONG_HANDLE.getVolatile(
+                allocator.slab(record), SlabAllocator.offset(record) + PREVIOUS_REF_OFFSET);
+    }
+
+    private void setPreviousRef(long record, long previous) {
+        allocator.slab(record).set(ValueLayout.JAVA_LONG, SlabAllocator.offset(record) + PREVIOUS_REF_OFFSET, previous);
+    }
+
+    private boolean casPreviousRef(long record, long expected, long previous) {
+        return LONG_HANDLE.compareAndSet(
+                allocator.slab(record), SlabAllocator.offset(record) + PREVIOUS_REF_OFFSET, expected, previous);
+    }
+
+    private static long nextOffset(long node, int level) {
+        return SlabAllocator.offset(node) + NEXT_OFFSET + (long) level * Long.BYTES;
+    }
+
+    private final class NodeIterator implements Iterator<Entry<MemorySegment>> {
+        private final MemorySegment to;
+        private final long toPrefix;
+        private final long sequence;
+        private long node;
+        private Entry<MemorySegment> next;
+
+        NodeIterator(long node, MemorySegment to, long sequence) {
+            this.node = node;
+            this.to = to;
+            this.toPrefix = to == null ? 0 : MemorySegmentComparator.prefix(to);
+            this.sequence = sequence;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<MemorySegment> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<MemorySegment> entry = next;
+            advance();
+            return entry;
+        }
+
+        /**
+         * Moves to the next node in range that has a visible version, skipping keys inserted later.
+         */
+        private void advance() {
+            next = null;
+            while (next == null && node != NIL && (to == null || compareKey(node, to, toPrefix) < 0)) {
+                next = entryAt(node, sequence);
+                node = MemTable.this.next(node, 0);
+            }
+        }
+    }
+
+    private final class DescendingNodeIterator implements Iterator<Entry<MemorySegment>> {
+        private final MemorySegment from;
+        private final long fromPrefix;
+        private final long sequence;
+        private long node;
+        private Entry<MemorySegment> next;
+
+        DescendingNodeIterator(long node, MemorySegment from, long sequence) {
+            this.node = node;
+            this.from = from;
+            this.fromPrefix = from == null ? 0 : MemorySegmentComparator.prefix(from);
+            this.sequence = sequence;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<MemorySegment> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<MemorySegment> entry = next;
+            advance();
+            return entry;
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && node != NIL && (from == null || compareKey(node, from, fromPrefix) >= 0)) {
+                next = entryAt(node, sequence);
+                node = lastBefore(key(node), keyPrefix(node));
+            }
+        }
+    }
+
+    /**
+     * Exposes nodes and their visible value records in place, right in the slabs.
+     */
+    private final class NodeCursor implements EntryCursor {
+        private final MemorySegment from;
+        private final MemorySegment to;
+        private final long toPrefix;
+        private final long sequence;
+        private long node;
+        private long record;
+
+        NodeCursor(MemorySegment from, MemorySegment to, long sequence) {
+            this.from = from;
+            this.to = to;
+            this.toPrefix = to == null ? 0 : MemorySegmentComparator.prefix(to);
+            this.sequence = sequence;
+            seek(null);
+        }
+
+        @Override
+        public void seek(MemorySegment key) {
+            MemorySegment target = key == null ? from : key;
+            node = target == null
+                    ? MemTable.this.next(head, 0)
+                    : lowerBound(target, MemorySegmentComparator.prefix(target));
+            skipInvisible();
+        }
+
+        @Override
+        public boolean isValid() {
+            return node != NIL;
+        }
+
+        @Override
+        public void next() {
+            node = MemTable.this.next(node, 0);
+            skipInvisible();
+        }
+
+        @Override
+        public MemorySegment keySegment() {
+            return allocator.slab(node);
+        }
+
+        @Override
+        public long keyOffset() {
+            return MemTable.this.keyOffset(node);
+        }
+
+        @Override
+        public long keySize() {
+            return allocator.slab(node).get(ValueLayout.JAVA_INT, SlabAllocator.offset(node) + KEY_SIZE_OFFSET);
+        }
+
+        @Override
+        public MemorySegment valueSegment() {
+            return allocator.slab(record);
+        }
+
+        @Override
+        public long valueOffset() {
+            return SlabAllocator.offset(record) + VALUE_HEADER_SIZE;
+        }
+
+        @Override
+        public int valueSize() {
+            return allocator.slab(record).get(
+                    ValueLayout.JAVA_INT_UNALIGNED, SlabAllocator.offset(record) + VALUE_SIZE_OFFSET);
+        }
+
+        /**
+         * Moves to the first node from the current one that is in range and has a visible version.
+         */
+        private void skipInvisible() {
+            while (node != NIL) {
+                if (to != null && compareKey(node, to, toPrefix) >= 0) {
+                    node = NIL;
+                    return;
+                }
+                record = visibleRecord(node, sequence);
+                if (record != NIL) {
+                    return;
+                }
+                node = MemTable.this.next(node, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.vk.itmo.abramovilya;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+final class MemorySegmentComparator {
+    static final int PREFIX_SIZE = Long.BYTES;
+    private static final ValueLayout.OfLong BIG_ENDIAN_LONG =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    // Flipping the sign bit of every byte makes unsigned order of the bytes match their signed order
+    private static final long SIGN_BITS = 0x8080_8080_8080_8080L;
+
+    private MemorySegmentComparator() {
+    }
+
+    /**
+     * Returns the first {@value #PREFIX_SIZE} bytes of {@code key} packed so that, whenever the prefixes
+     * of two keys differ, {@link Long#compareUnsigned} orders them the same way as {@link #compare} orders the keys.
+     * Shorter keys are padded with zeros, which is below any packed byte but -128, so equal prefixes
+     * need a full comparison.
+     */
+    static long prefix(MemorySegment key) {
+        long size = key.byteSize();
+        if (size >= PREFIX_SIZE) {
+            return key.get(BIG_ENDIAN_LONG, 0) ^ SIGN_BITS;
+        }
+        long prefix = 0;
+        for (int i = 0; i < size; i++) {
+            prefix |= ((key.get(ValueLayout.JAVA_BYTE, i) ^ 0x80) & 0xFFL) << (Long.SIZE - Byte.SIZE * (i + 1));
+        }
+        return prefix;
+    }
+
+    /**
+     * Compares keys with known {@link #prefix prefixes}, looking at the bytes past the prefixes only on a tie.
+     */
+    static int compare(MemorySegment key1, long prefix1, MemorySegment key2, long prefix2) {
+        int compare = Long.compareUnsigned(prefix1, prefix2);
+        if (compare != 0) {
+            return compare;
+        }
+        if (key1.byteSize() <= PREFIX_SIZE || key2.byteSize() <= PREFIX_SIZE) {
+            // The shorter key is a prefix of the other one
+            return Long.compare(key1.byteSize(), key2.byteSize());
+        }
+        return compare(key1, PREFIX_SIZE, key1.byteSize(), key2, PREFIX_SIZE, key2.byteSize());
+    }
+
+    /**
+     * Returns the smallest key greater than every key starting with {@code prefix},
+     * or {@code null} if there is none because the prefix consists of maximal bytes only.
+     */
+    static MemorySegment prefixSuccessor(MemorySegment prefix) {
+        for (long i = prefix.byteSize() - 1; i >= 0; i--) {
+            byte b = prefix.get(ValueLayout.JAVA_BYTE, i);
+            if (b != Byte.MAX_VALUE) {
+                byte[] successor = prefix.asSlice(0, i + 1).toArray(ValueLayout.JAVA_BYTE);
+                successor[(int) i] = (byte) (b + 1);
+                return MemorySegment.ofArray(successor);
+            }
+        }
+        return null;
+    }
+
+    static int compare(MemorySegment segment1, MemorySegment segment2) {
+        return compare(segment1, 0, segment1.byteSize(), segment2, 0, segment2.byteSize());
+    }
+
+    static int compare(MemorySegment segment1, long from1, long to1,
+                       MemorySegment segment2, long from2, long to2) {
+        long offset = MemorySegment.mismatch(segment1, from1, to1, segment2, from2, to2);
+        if (offset == -1) {
+            return 0;
+        } else if (offset == to1 - from1) {
+            return -1;
+        } else if (offset == to2 - from2) {
+            return 1;
+        }
+        return Byte.compare(
+                segment1.get(ValueLayout.JAVA_BYTE, from1 + offset),
+                segment2.get(ValueLayout.JAVA_BYTE, from2 + offset)
+        );
+    }
+}
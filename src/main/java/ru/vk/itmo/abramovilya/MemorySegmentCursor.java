@@ -0,0 +1,39 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.Cursor;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Cursor that also hands out the current key and value by copying them into caller memory, so that a scan
+ * which reads every entry this way allocates nothing per entry, unlike {@link #key} and {@link #value},
+ * which create a view on every call.
+ */
+public interface MemorySegmentCursor extends Cursor<MemorySegment> {
+
+    /**
+     * Returns the size of the current key in bytes.
+     * @return key size
+     */
+    long keySize();
+
+    /**
+     * Returns the size of the current value in bytes.
+     * @return value size
+     */
+    long valueSize();
+
+    /**
+     * Copies the current key to target starting at offset; target must have room for {@link #keySize} bytes.
+     * @param target segment to copy to
+     * @param offset offset in target
+     */
+    void copyKeyTo(MemorySegment target, long offset);
+
+    /**
+     * Copies the current value to target starting at offset; target must have room for {@link #valueSize} bytes.
+     * @param target segment to copy to
+     * @param offset offset in target
+     */
+    void copyValueTo(MemorySegment target, long offset);
+}
@@ -0,0 +1,139 @@
+package ru.vk.itmo.abramovilya;
+
+import java.lang.foreign.MemorySegment;
+import java.util.List;
+
+/**
+ * Cursor counterpart of {@link MergeIterator}: merges sorted cursors into one cursor over unique keys,
+ * where on equal keys the earlier source wins. The binary heap holds source indices in a plain array
+ * and sources are compared in place, so a step allocates nothing.
+ */
+final class MergeCursor implements EntryCursor {
+    private final EntryCursor[] sources;
+    private final int[] heap;
+    private int size;
+
+    MergeCursor(List<EntryCursor> sources) {
+        this.sources = sources.toArray(new EntryCursor[0]);
+        this.heap = new int[this.sources.length];
+    }
+
+    @Override
+    public void seek(MemorySegment key) {
+        size = 0;
+        for (int i = 0; i < sources.length; i++) {
+            sources[i].seek(key);
+            if (sources[i].isValid()) {
+                heap[size++] = i;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    @Override
+    public boolean isValid() {
+        return size > 0;
+    }
+
+    @Override
+    public void next() {
+        int top = heap[0];
+        removeTop();
+        // Older versions of the key are skipped before the winner moves and its key buffer is overwritten
+        while (size > 0 && EntryCursor.compareKeys(sources[heap[0]], sources[top]) == 0) {
+            EntryCursor duplicate = sources[heap[0]];
+            duplicate.next();
+            if (duplicate.isValid()) {
+                siftDown(0);
+            } else {
+                removeTop();
+            }
+        }
+        EntryCursor source = sources[top];
+        source.next();
+        if (source.isValid()) {
+            heap[size] = top;
+            siftUp(size++);
+        }
+    }
+
+    @Override
+    public MemorySegment keySegment() {
+        return current().keySegment();
+    }
+
+    @Override
+    public long keyOffset() {
+        return current().keyOffset();
+    }
+
+    @Override
+    public long keySize() {
+        return current().keySize();
+    }
+
+    @Override
+    public MemorySegment valueSegment() {
+        return current().valueSegment();
+    }
+
+    @Override
+    public long valueOffset() {
+        return current().valueOffset();
+    }
+
+    @Override
+    public int valueSize() {
+        return current().valueSize();
+    }
+
+    private EntryCursor current() {
+        return sources[heap[0]];
+    }
+
+    private void removeTop() {
+        heap[0] = heap[--size];
+        siftDown(0);
+    }
+
+    private boolean less(int left, int right) {
+        int compare = EntryCursor.compareKeys(sources[left], sources[right]);
+        return compare < 0 || (compare == 0 && left < right);
+    }
+
+    private void siftUp(int index) {
+        int i = index;
+        int source = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(source, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = source;
+    }
+
+    private void siftDown(int index) {
+        int i = index;
+        int source = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], source)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = source;
+    }
+}
@@ -0,0 +1,117 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.Entry;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Merges sorted sources into one sorted stream of unique keys using a binary heap,
+ * so every returned entry costs O(log N) comparisons for N sources.
+ * Sources are ordered by priority: on equal keys the entry of the earlier source wins.
+ * Descending sources are merged the same way with the key order reversed.
+ */
+final class MergeIterator implements Iterator<Entry<MemorySegment>> {
+    private static final Comparator<PeekingIterator> ORDER = (left, right) -> {
+        int compare = MemorySegmentComparator.compare(left.peek().key(), right.peek().key());
+        return compare != 0 ? compare : Integer.compare(left.priority, right.priority);
+    };
+    private static final Comparator<PeekingIterator> DESCENDING_ORDER = (left, right) -> {
+        int compare = MemorySegmentComparator.compare(right.peek().key(), left.peek().key());
+        return compare != 0 ? compare : Integer.compare(left.priority, right.priority);
+    };
+
+    private final PriorityQueue<PeekingIterator> queue;
+
+    private MergeIterator(PriorityQueue<PeekingIterator> queue) {
+        this.queue = queue;
+    }
+
+    static Iterator<Entry<MemorySegment>> merge(List<Iterator<Entry<MemorySegment>>> iterators) {
+        return merge(iterators, ORDER);
+    }
+
+    static Iterator<Entry<MemorySegment>> mergeDescending(List<Iterator<Entry<MemorySegment>>> iterators) {
+        return merge(iterators, DESCENDING_ORDER);
+    }
+
+    private static Iterator<Entry<MemorySegment>> merge(
+            List<Iterator<Entry<MemorySegment>>> iterators,
+            Comparator<PeekingIterator> order
+    ) {
+        List<PeekingIterator> sources = new ArrayList<>(iterators.size());
+        for (int i = 0; i < iterators.size(); i++) {
+            Iterator<Entry<MemorySegment>> iterator = iterators.get(i);
+            if (iterator.hasNext()) {
+                sources.add(new PeekingIterator(i, iterator));
+            }
+        }
+        if (sources.size() == 1) {
+            return sources.getFirst().delegate;
+        }
+        PriorityQueue<PeekingIterator> queue = new PriorityQueue<>(Math.max(1, sources.size()), order);
+        queue.addAll(sources);
+        return new MergeIterator(queue);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !queue.isEmpty();
+    }
+
+    @Override
+    public Entry<MemorySegment> next() {
+        PeekingIterator top = queue.poll();
+        if (top == null) {
+            throw new NoSuchElementException();
+        }
+        Entry<MemorySegment> result = top.next();
+        if (top.hasNext()) {
+            queue.add(top);
+        }
+
+        PeekingIterator head = queue.peek();
+        while (head != null && MemorySegmentComparator.compare(head.peek().key(), result.key()) == 0) {
+            queue.poll();
+            head.next();
+            if (head.hasNext()) {
+                queue.add(head);
+            }
+            head = queue.peek();
+        }
+        return result;
+    }
+
+    private static final class PeekingIterator {
+        private final int priority;
+        private final Iterator<Entry<MemorySegment>> delegate;
+        private Entry<MemorySegment> current;
+
+        PeekingIterator(int priority, Iterator<Entry<MemorySegment>> delegate) {
+            this.priority = priority;
+            this.delegate = delegate;
+        }
+
+        boolean hasNext() {
+            return current != null || delegate.hasNext();
+        }
+
+        Entry<MemorySegment> peek() {
+            if (current == null) {
+                current = delegate.next();
+            }
+            return current;
+        }
+
+        Entry<MemorySegment> next() {
+            Entry<MemorySegment> result = peek();
+            current = null;
+            return result;
+        }
+    }
+}
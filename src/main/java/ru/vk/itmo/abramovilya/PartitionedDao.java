@@ -0,0 +1,262 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.Config;
+import ru.vk.itmo.Dao;
+import ru.vk.itmo.Entry;
+import ru.vk.itmo.WriteBatch;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Dao that spreads keys by hash over independent {@link InMemoryDao} partitions, each with its own memtables,
+ * log, tables and background threads in a {@code partition-<i>} subdirectory of the base path, so that writes,
+ * flushes and compactions of different partitions do not contend with each other.
+ * Point operations go straight to the partition of the key, while range reads merge all partitions.
+ * A snapshot is consistent within every partition, while across them it only sees write batches whole:
+ * a batch spanning several partitions is split into parts that are applied under a lock that keeps snapshots out.
+ * Each partition has its own log though, so a crash or a failure of one part may leave the other parts applied.
+ * The block cache budget is split evenly between the partitions.
+ */
+public class PartitionedDao implements Dao<MemorySegment, Entry<MemorySegment>> {
+    private static final String PARTITION_PREFIX = "partition-";
+    // Odd constant of the murmur3 finalizer
+    private static final long PARTITION_MIX = 0xC4CEB9FE1A85EC53L;
+
+    private final InMemoryDao[] partitions;
+    // Held exclusively while a batch spanning partitions is applied, so that snapshots see all of it or none
+    private final ReadWriteLock batchLock = new ReentrantReadWriteLock();
+
+    public PartitionedDao(Config config) throws IOException {
+        Path basePath = config.basePath();
+        checkLayout(basePath, config.partitions());
+        Path[] paths = new Path[config.partitions()];
+        for (int i = 0; i < paths.length; i++) {
+            // All directories are created before any data is written, so that the layout check never sees a part
+            paths[i] = Files.createDirectories(basePath.resolve(PARTITION_PREFIX + i));
+        }
+        this.partitions = new InMemoryDao[paths.length];
+        try {
+            for (int i = 0; i < paths.length; i++) {
+                partitions[i] = new InMemoryDao(partitionConfig(config, paths[i]));
+            }
+        } catch (IOException e) {
+            for (InMemoryDao partition : partitions) {
+                if (partition != null) {
+                    try {
+                        partition.close();
+                    } catch (IOException closeException) {
+                        e.addSuppressed(closeException);
+                    }
+                }
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Iterator<Entry<MemorySegment>> get(MemorySegment from, MemorySegment to) {
+        return snapshot().get(from, to);
+    }
+
+    @Override
+    public Iterator<Entry<MemorySegment>> scanPrefix(MemorySegment prefix) {
+        return snapshot().scanPrefix(prefix);
+    }
+
+    @Override
+    public MemorySegmentCursor cursor(MemorySegment from, MemorySegment to) {
+        return takeSnapshot().cursor(from, to);
+    }
+
+    @Override
+    public Iterator<Entry<MemorySegment>> getDescending(MemorySegment from, MemorySegment to) {
+        return snapshot().getDescending(from, to);
+    }
+
+    @Override
+    public Entry<MemorySegment> get(MemorySegment key) {
+        return partitions[partition(key, partitions.length)].get(key);
+    }
+
+    @Override
+    public List<Entry<MemorySegment>> getAll(Collection<MemorySegment> keys) {
+        return snapshot().getAll(keys);
+    }
+
+    @Override
+    public void upsert(Entry<MemorySegment> entry) {
+        partitions[partition(entry.key(), partitions.length)].upsert(entry);
+    }
+
+    /**
+     * Splits the batch by partition and writes every part as a batch of its own. A batch within one partition
+     * is atomic there; the parts of a batch spanning partitions become visible to snapshots together,
+     * but are logged separately.
+     */
+    @Override
+    public void write(WriteBatch<Entry<MemorySegment>> batch) {
+        List<WriteBatch<Entry<MemorySegment>>> parts = new ArrayList<>(partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            parts.add(new WriteBatch<>());
+        }
+        int partCount = 0;
+        for (Entry<MemorySegment> entry : batch) {
+            WriteBatch<Entry<MemorySegment>> part = parts.get(partition(entry.key(), partitions.length));
+            if (part.isEmpty()) {
+                partCount++;
+            }
+            part.upsert(entry);
+        }
+        if (partCount <= 1) {
+            writeParts(parts);
+            return;
+        }
+        batchLock.writeLock().lock();
+        try {
+            writeParts(parts);
+        } finally {
+            batchLock.writeLock().unlock();
+        }
+    }
+
+    private void writeParts(List<WriteBatch<Entry<MemorySegment>>> parts) {
+        for (int i = 0; i < partitions.length; i++) {
+            if (!parts.get(i).isEmpty()) {
+                partitions[i].write(parts.get(i));
+            }
+        }
+    }
+
+    /**
+     * Returns a read-only view made of snapshots of the partitions taken one after another.
+     */
+    @Override
+    public Dao<MemorySegment, Entry<MemorySegment>> snapshot() {
+        return takeSnapshot();
+    }
+
+    PartitionedSnapshot takeSnapshot() {
+        Snapshot[] snapshots = new Snapshot[partitions.length];
+        batchLock.readLock().lock();
+        try {
+            for (int i = 0; i < partitions.length; i++) {
+                snapshots[i] = partitions[i].takeSnapshot();
+            }
+        } finally {
+            batchLock.readLock().unlock();
+        }
+        return new PartitionedSnapshot(snapshots);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (InMemoryDao partition : partitions) {
+            partition.flush();
+        }
+    }
+
+    /**
+     * Schedules a full compaction of every partition in the background.
+     */
+    @Override
+    public void compact() {
+        for (InMemoryDao partition : partitions) {
+            partition.compact();
+        }
+    }
+
+    /**
+     * Returns the number of SSTable block reads served by the block caches of all partitions.
+     */
+    public long blockCacheHitCount() {
+        long count = 0;
+        for (InMemoryDao partition : partitions) {
+            count += partition.blockCacheHitCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of SSTable block reads that missed the block caches of all partitions.
+     */
+    public long blockCacheMissCount() {
+        long count = 0;
+        for (InMemoryDao partition : partitions) {
+            count += partition.blockCacheMissCount();
+        }
+        return count;
+    }
+
+    /**
+     * Closes every partition, even if closing an earlier one fails.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (InMemoryDao partition : partitions) {
+            try {
+                partition.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Returns the partition of {@code key} out of {@code partitionCount}.
+     * Bloom filters probe bits chosen by the same hash, so it is remixed first: otherwise the keys of a partition
+     * would agree in the low bits of the hash and set only a part of the filter bits.
+     */
+    static int partition(MemorySegment key, int partitionCount) {
+        long hash = Long.rotateLeft(BloomFilter.hash(key), Integer.SIZE) * PARTITION_MIX;
+        return (int) Math.unsignedMultiplyHigh(hash, partitionCount);
+    }
+
+    /**
+     * Fails if the base path holds the data of a Dao that was not partitioned or had another number of partitions,
+     * since its keys would be looked up in wrong partitions.
+     */
+    private static void checkLayout(Path basePath, int partitionCount) throws IOException {
+        if (!Files.exists(basePath)) {
+            return;
+        }
+        if (Storage.exists(basePath) || !WriteAheadLog.logs(basePath).isEmpty()) {
+            throw new IOException(basePath + " holds data of a Dao that is not partitioned");
+        }
+        int existing = 0;
+        try (Stream<Path> files = Files.list(basePath)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isDirectory(file) && file.getFileName().toString().startsWith(PARTITION_PREFIX)) {
+                    existing++;
+                }
+            }
+        }
+        if (existing != 0 && existing != partitionCount) {
+            throw new IOException(basePath + " holds " + existing + " partitions, not " + partitionCount);
+        }
+    }
+
+    private static Config partitionConfig(Config config, Path path) {
+        return config
+                .withBasePath(path)
+                .withBlockCacheBytes(config.blockCacheBytes() / config.partitions())
+                .withPartitions(1);
+    }
+}
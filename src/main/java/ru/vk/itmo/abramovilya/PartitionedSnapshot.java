@@ -0,0 +1,106 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.Dao;
+import ru.vk.itmo.Entry;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Read-only view of a {@link PartitionedDao} made of a {@link Snapshot} of every partition.
+ * The partitions hold disjoint keys, so range reads merge them without any duplicates to resolve.
+ */
+final class PartitionedSnapshot implements Dao<MemorySegment, Entry<MemorySegment>> {
+    private final Snapshot[] snapshots;
+
+    PartitionedSnapshot(Snapshot[] snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    @Override
+    public Iterator<Entry<MemorySegment>> get(MemorySegment from, MemorySegment to) {
+        List<Iterator<Entry<MemorySegment>>> iterators = new ArrayList<>(snapshots.length);
+        for (Snapshot snapshot : snapshots) {
+            iterators.add(snapshot.get(from, to));
+        }
+        return MergeIterator.merge(iterators);
+    }
+
+    @Override
+    public Iterator<Entry<MemorySegment>> scanPrefix(MemorySegment prefix) {
+        List<Iterator<Entry<MemorySegment>>> iterators = new ArrayList<>(snapshots.length);
+        for (Snapshot snapshot : snapshots) {
+            iterators.add(snapshot.scanPrefix(prefix));
+        }
+        return MergeIterator.merge(iterators);
+    }
+
+    @Override
+    public Iterator<Entry<MemorySegment>> getDescending(MemorySegment from, MemorySegment to) {
+        List<Iterator<Entry<MemorySegment>>> iterators = new ArrayList<>(snapshots.length);
+        for (Snapshot snapshot : snapshots) {
+            iterators.add(snapshot.getDescending(from, to));
+        }
+        return MergeIterator.mergeDescending(iterators);
+    }
+
+    /**
+     * Merges the sources of all partitions in a single cursor, so tombstones are skipped once for all of them.
+     */
+    @Override
+    public MemorySegmentCursor cursor(MemorySegment from, MemorySegment to) {
+        List<EntryCursor> cursors = new ArrayList<>(snapshots.length);
+        for (Snapshot snapshot : snapshots) {
+            cursors.add(snapshot.entryCursor(from, to));
+        }
+        return new SkipTombstonesCursor(new MergeCursor(cursors), from);
+    }
+
+    @Override
+    public Entry<MemorySegment> get(MemorySegment key) {
+        return snapshots[PartitionedDao.partition(key, snapshots.length)].get(key);
+    }
+
+    /**
+     * Hands every partition the keys it owns in one call and puts the results back in the order of the keys.
+     */
+    @Override
+    public List<Entry<MemorySegment>> getAll(Collection<MemorySegment> keys) {
+        List<List<MemorySegment>> partitionKeys = new ArrayList<>(snapshots.length);
+        for (int i = 0; i < snapshots.length; i++) {
+            partitionKeys.add(new ArrayList<>());
+        }
+        int[] owners = new int[keys.size()];
+        int index = 0;
+        for (MemorySegment key : keys) {
+            owners[index] = PartitionedDao.partition(key, snapshots.length);
+            partitionKeys.get(owners[index]).add(key);
+            index++;
+        }
+
+        List<List<Entry<MemorySegment>>> found = new ArrayList<>(snapshots.length);
+        for (int i = 0; i < snapshots.length; i++) {
+            List<MemorySegment> ownKeys = partitionKeys.get(i);
+            found.add(ownKeys.isEmpty() ? List.of() : snapshots[i].getAll(ownKeys));
+        }
+        int[] positions = new int[snapshots.length];
+        List<Entry<MemorySegment>> entries = new ArrayList<>(owners.length);
+        for (int owner : owners) {
+            entries.add(found.get(owner).get(positions[owner]++));
+        }
+        return entries;
+    }
+
+    @Override
+    public void upsert(Entry<MemorySegment> entry) {
+        throw new UnsupportedOperationException("Snapshot is read-only");
+    }
+
+    @Override
+    public Dao<MemorySegment, Entry<MemorySegment>> snapshot() {
+        return this;
+    }
+}
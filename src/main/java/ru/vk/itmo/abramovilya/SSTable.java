@@ -0,0 +1,465 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.Config;
+import ru.vk.itmo.Entry;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable sorted table backed by a memory-mapped file.
+ * The file is a sequence of data blocks followed by a Bloom filter, a sparse index and a fixed-size footer:
+ * <pre>
+ * block:        see {@link Block}, or with compression: (uncompressedSize:int lzBlock | -1:int block)
+ * filter:       word:long*
+ * prefixFilter: word:long*
+ * index:        (blockOffset:long firstKeySize:int firstKey)*
+ * footer:       indexOffset:long blockCount:long entryCount:long filterOffset:long filterHashCount:long
+ *               tombstoneCount:long compression:long prefixFilterOffset:long prefixLength:long
+ * </pre>
+ * The first key of every block is kept on heap, so a point lookup touches a single data block,
+ * and only when the Bloom filter does not rule the key out.
+ * The compression of a table is recorded in its footer, so tables written with different settings can be mixed.
+ * Compressed blocks are inflated on read and kept in the {@link BlockCache} of the Dao, if there is one;
+ * other blocks are read straight from the mapping.
+ */
+final class SSTable {
+    static final long FOOTER_SIZE = 9L * Long.BYTES;
+    static final int TOMBSTONE_SIZE = -1;
+    static final int UNCOMPRESSED_BLOCK = -1;
+
+    private final Path path;
+    private final long id;
+    private final MemorySegment segment;
+    private final BlockCache blockCache;
+    private final BloomFilter filter;
+    private final BloomFilter prefixFilter;
+    // Length of the key prefixes in the prefix filter, 0 if the table has none
+    private final int prefixLength;
+    private final Config.Compression compression;
+    private final long entryCount;
+    private final long tombstoneCount;
+    private final int blockCount;
+    // blockCount + 1 elements, the last one is the end of the data section
+    private final long[] blockOffsets;
+    private final MemorySegment firstKeys;
+    private final long[] firstKeyOffsets;
+    private final MemorySegment lastKey;
+
+    /**
+     * Opens a table; {@code id} must be unique among the tables sharing {@code blockCache}, which may be null.
+     */
+    SSTable(Path path, long id, MemorySegment segment, BlockCache blockCache) {
+        this.path = path;
+        this.id = id;
+        this.segment = segment;
+        this.blockCache = blockCache;
+        long footerOffset = segment.byteSize() - FOOTER_SIZE;
+        long indexOffset = segment.get(ValueLayout.JAVA_LONG_UNALIGNED, footerOffset);
+        this.blockCount = (int) segment.get(ValueLayout.JAVA_LONG_UNALIGNED, footerOffset + Long.BYTES);
+        this.entryCount = segment.get(ValueLayout.JAVA_LONG_UNALIGNED, footerOffset + 2L * Long.BYTES);
+        long filterOffset = segment.get(ValueLayout.JAVA_LONG_UNALIGNED, footerOffset + 3L * Long.BYTES);
+        int filterHashCount = (int) segment.get(ValueLayout.JAVA_LONG_UNALIGNED, footerOffset + 4L * Long.BYTES);
+        this.tombstoneCount = segment.get(ValueLayout.JAVA_LONG_UNALIGNED, footerOffset + 5L * Long.BYTES);
+        this.compression = Config.Compression.values()[
+                (int) segment.get(ValueLayout.JAVA_LONG_UNALIGNED, footerOffset + 6L * Long.BYTES)];
+        long prefixFilterOffset = segment.get(ValueLayout.JAVA_LONG_UNALIGNED, footerOffset + 7L * Long.BYTES);
+        this.prefixLength = (int) segment.get(ValueLayout.JAVA_LONG_UNALIGNED, footerOffset + 8L * Long.BYTES);
+        this.filter = new BloomFilter(
+                segment.asSlice(filterOffset, prefixFilterOffset - filterOffset), filterHashCount);
+        this.prefixFilter = new BloomFilter(
+                segment.asSlice(prefixFilterOffset, indexOffset - prefixFilterOffset), filterHashCount);
+
+        this.blockOffsets = new long[blockCount + 1];
+        this.firstKeyOffsets = new long[blockCount + 1];
+        SegmentBuffer keys = new SegmentBuffer(Math.max(1, footerOffset - indexOffset));
+        long offset = indexOffset;
+        for (int i = 0; i < blockCount; i++) {
+            blockOffsets[i] = segment.get(ValueLayout.JAVA_LONG_UNALIGNED, offset);
+            int keySize = segment.get(ValueLayout.JAVA_INT_UNALIGNED, offset + Long.BYTES);
+            offset += Long.BYTES + Integer.BYTES;
+            firstKeyOffsets[i] = keys.size();
+            keys.put(segment.asSlice(offset, keySize));
+            offset += keySize;
+        }
+        blockOffsets[blockCount] = filterOffset;
+        firstKeyOffsets[blockCount] = keys.size();
+        this.firstKeys = keys.asSegment();
+        if (blockCount == 0) {
+            this.lastKey = null;
+        } else {
+            Block lastBlock = new Block(readBlock(blockCount - 1));
+            this.lastKey = lastBlock.seek(lastBlock.entryCount() - 1).key();
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long byteSize() {
+        return segment.byteSize();
+    }
+
+    long entryCount() {
+        return entryCount;
+    }
+
+    long tombstoneCount() {
+        return tombstoneCount;
+    }
+
+    /**
+     * Returns the smallest key in the table, or {@code null} if the table is empty.
+     */
+    MemorySegment firstKey() {
+        return blockCount == 0 ? null : firstKeys.asSlice(0, firstKeyOffsets[1]);
+    }
+
+    /**
+     * Returns the largest key in the table, or {@code null} if the table is empty.
+     */
+    MemorySegment lastKey() {
+        return lastKey;
+    }
+
+    /**
+     * Returns {@code false} if the prefix filter rules out keys starting with {@code prefix}. Prefixes shorter
+     * than those in the filter, or tables without a filter, are never ruled out.
+     */
+    boolean mightContainPrefix(MemorySegment prefix) {
+        if (prefixLength == 0 || prefix.byteSize() < prefixLength) {
+            return true;
+        }
+        return prefixFilter.mightContain(BloomFilter.hash(prefix.asSlice(0, prefixLength)));
+    }
+
+    /**
+     * Returns the entry for {@code key}, which may be a tombstone, or {@code null} if the table has no such key.
+     */
+    Entry<MemorySegment> get(MemorySegment key, long keyHash) {
+        if (!filter.mightContain(keyHash)) {
+            return null;
+        }
+        int blockIndex = findBlock(key, 0);
+        if (blockIndex < 0) {
+            return null;
+        }
+        return find(block(blockIndex), key);
+    }
+
+    Iterator<Entry<MemorySegment>> iterator(MemorySegment from, MemorySegment to) {
+        return iterator(from, to, true);
+    }
+
+    /**
+     * Returns an iterator over {@code [from, to)}; with {@code cached} unset blocks bypass the block cache,
+     * so that a one-off pass over the table, such as a compaction, does not evict hot blocks.
+     */
+    Iterator<Entry<MemorySegment>> iterator(MemorySegment from, MemorySegment to, boolean cached) {
+        long start = from == null ? position(0, 0) : lowerBound(from);
+        long end = to == null ? position(blockCount, 0) : lowerBound(to);
+        return new BlockIterator(start, end, cached);
+    }
+
+    /**
+     * Returns a cursor over {@code [from, to)} that decodes entries in place: a full scan allocates
+     * per block rather than per entry.
+     */
+    EntryCursor cursor(MemorySegment from, MemorySegment to) {
+        long start = from == null ? position(0, 0) : lowerBound(from);
+        long end = to == null ? position(blockCount, 0) : lowerBound(to);
+        return new TableCursor(start, end);
+    }
+
+    /**
+     * Returns an iterator over {@code [from, to)} going from the last key to the first. Blocks are decoded
+     * forward a restart interval at a time, and the entries of every interval are returned in reverse.
+     */
+    Iterator<Entry<MemorySegment>> descendingIterator(MemorySegment from, MemorySegment to) {
+        long start = from == null ? position(0, 0) : lowerBound(from);
+        long end = to == null ? position(blockCount, 0) : lowerBound(to);
+        return new DescendingBlockIterator(start, end);
+    }
+
+    /**
+     * Looks up ascending {@code keys[from, to)} with their {@code keyHashes} in a single forward pass,
+     * filling the empty slots of {@code results}. Keys falling into the same block share a single block read.
+     */
+    void getAll(MemorySegment[] keys, long[] keyHashes, Entry<MemorySegment>[] results, int from, int to) {
+        int blockIndex = -1;
+        Block.Cursor cursor = null;
+        for (int i = from; i < to; i++) {
+            if (results[i] != null || !filter.mightContain(keyHashes[i])) {
+                continue;
+            }
+            MemorySegment key = keys[i];
+            int keyBlockIndex = findBlock(key, Math.max(blockIndex, 0));
+            if (keyBlockIndex < 0) {
+                continue;
+            }
+            if (keyBlockIndex == blockIndex) {
+                cursor.advanceTo(key);
+            } else {
+                blockIndex = keyBlockIndex;
+                cursor = block(blockIndex).seek(key);
+            }
+            if (cursor.isValid() && cursor.compareKey(key) == 0) {
+                results[i] = cursor.entry();
+            }
+        }
+    }
+
+    private static Entry<MemorySegment> find(Block block, MemorySegment key) {
+        Block.Cursor cursor = block.seek(key);
+        if (!cursor.isValid() || cursor.compareKey(key) != 0) {
+            return null;
+        }
+        return cursor.entry();
+    }
+
+    /**
+     * Returns the index of the last block whose first key is not greater than {@code key}, or -1.
+     * The search starts at block {@code low}, which the caller knows the key not to precede.
+     */
+    private int findBlock(MemorySegment key, int low) {
+        int high = blockCount - 1;
+        int lowest = low;
+        while (lowest <= high) {
+            int mid = (lowest + high) >>> 1;
+            int compare = MemorySegmentComparator.compare(
+                    firstKeys, firstKeyOffsets[mid], firstKeyOffsets[mid + 1],
+                    key, 0, key.byteSize()
+            );
+            if (compare <= 0) {
+                lowest = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Returns the block, going through the block cache only for blocks that have to be decompressed:
+     * other blocks are slices of the mapping, which the page cache already serves without a copy.
+     */
+    private Block block(int blockIndex) {
+        if (blockCache == null || compression == Config.Compression.NONE) {
+            return new Block(readBlock(blockIndex));
+        }
+        MemorySegment stored = storedBlock(blockIndex);
+        if (stored.get(ValueLayout.JAVA_INT_UNALIGNED, 0) == UNCOMPRESSED_BLOCK) {
+            return new Block(stored.asSlice(Integer.BYTES));
+        }
+        return new Block(blockCache.get(id, blockIndex, this::readBlock));
+    }
+
+    /**
+     * Returns the block as a slice of the mapping, or as a heap segment if the block had to be decompressed.
+     */
+    private MemorySegment readBlock(int blockIndex) {
+        MemorySegment stored = storedBlock(blockIndex);
+        if (compression == Config.Compression.NONE) {
+            return stored;
+        }
+        int uncompressedSize = stored.get(ValueLayout.JAVA_INT_UNALIGNED, 0);
+        MemorySegment payload = stored.asSlice(Integer.BYTES);
+        if (uncompressedSize == UNCOMPRESSED_BLOCK) {
+            return payload;
+        }
+        byte[] block = new byte[uncompressedSize];
+        LzCodec.decompress(payload, block);
+        return MemorySegment.ofArray(block);
+    }
+
+    private MemorySegment storedBlock(int blockIndex) {
+        return segment.asSlice(blockOffsets[blockIndex], blockOffsets[blockIndex + 1] - blockOffsets[blockIndex]);
+    }
+
+    private long lowerBound(MemorySegment key) {
+        int blockIndex = findBlock(key, 0);
+        if (blockIndex < 0) {
+            return position(0, 0);
+        }
+        Block.Cursor cursor = block(blockIndex).seek(key);
+        if (!cursor.isValid()) {
+            return position(blockIndex + 1, 0);
+        }
+        return position(blockIndex, cursor.ordinal());
+    }
+
+    private static long position(int block, int entry) {
+        return ((long) block << 32) | entry;
+    }
+
+    private final class BlockIterator implements Iterator<Entry<MemorySegment>> {
+        private final long end;
+        private final boolean cached;
+        private int blockIndex;
+        private Block.Cursor cursor;
+
+        BlockIterator(long start, long end, boolean cached) {
+            this.end = end;
+            this.cached = cached;
+            this.blockIndex = (int) (start >>> 32);
+            if (position(blockIndex, (int) start) < end) {
+                openBlock((int) start);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor != null && position(blockIndex, cursor.ordinal()) < end;
+        }
+
+        @Override
+        public Entry<MemorySegment> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<MemorySegment> result = cursor.entry();
+            cursor.next();
+            if (!cursor.isValid()) {
+                blockIndex++;
+                cursor = null;
+                if (position(blockIndex, 0) < end) {
+                    openBlock(0);
+                }
+            }
+            return result;
+        }
+
+        private void openBlock(int entry) {
+            Block block = cached ? block(blockIndex) : new Block(readBlock(blockIndex));
+            cursor = block.seek(entry);
+        }
+    }
+
+    private final class TableCursor implements EntryCursor {
+        private final long start;
+        private final long end;
+        private int blockIndex;
+        private Block.Cursor cursor;
+
+        TableCursor(long start, long end) {
+            this.start = start;
+            this.end = end;
+            seek(null);
+        }
+
+        @Override
+        public void seek(MemorySegment key) {
+            long position = key == null ? start : Math.max(start, lowerBound(key));
+            blockIndex = (int) (position >>> 32);
+            cursor = position < end ? block(blockIndex).seek((int) position) : null;
+        }
+
+        @Override
+        public boolean isValid() {
+            return cursor != null && position(blockIndex, cursor.ordinal()) < end;
+        }
+
+        @Override
+        public void next() {
+            cursor.next();
+            if (!cursor.isValid()) {
+                blockIndex++;
+                cursor = position(blockIndex, 0) < end ? block(blockIndex).seek(0) : null;
+            }
+        }
+
+        @Override
+        public MemorySegment keySegment() {
+            return cursor.keyBuffer();
+        }
+
+        @Override
+        public long keyOffset() {
+            return 0;
+        }
+
+        @Override
+        public long keySize() {
+            return cursor.keySize();
+        }
+
+        @Override
+        public MemorySegment valueSegment() {
+            return cursor.block();
+        }
+
+        @Override
+        public long valueOffset() {
+            return cursor.valueOffset();
+        }
+
+        @Override
+        public int valueSize() {
+            return cursor.valueSize();
+        }
+    }
+
+    private final class DescendingBlockIterator implements Iterator<Entry<MemorySegment>> {
+        private final long start;
+        // Entries of the current restart interval that are left to return, in ascending order
+        private final List<Entry<MemorySegment>> interval = new ArrayList<>(Block.RESTART_INTERVAL);
+        private int blockIndex;
+        private Block block;
+        // Ordinal of the first entry of the interval within the block
+        private int intervalStart;
+
+        DescendingBlockIterator(long start, long end) {
+            this.start = start;
+            this.blockIndex = (int) (end >>> 32);
+            this.intervalStart = (int) end;
+            if (intervalStart > 0) {
+                block = block(blockIndex);
+            }
+            fill();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !interval.isEmpty();
+        }
+
+        @Override
+        public Entry<MemorySegment> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<MemorySegment> result = interval.removeLast();
+            if (interval.isEmpty()) {
+                fill();
+            }
+            return result;
+        }
+
+        /**
+         * Decodes the restart interval preceding the current one, stepping back to the previous block
+         * at the start of a block, unless the start position is reached.
+         */
+        private void fill() {
+            while (interval.isEmpty() && position(blockIndex, intervalStart) > start) {
+                if (intervalStart == 0) {
+                    blockIndex--;
+                    block = block(blockIndex);
+                    intervalStart = block.entryCount();
+                    continue;
+                }
+                int end = intervalStart;
+                intervalStart = (end - 1) / Block.RESTART_INTERVAL * Block.RESTART_INTERVAL;
+                int first = blockIndex == (int) (start >>> 32) ? Math.max(intervalStart, (int) start) : intervalStart;
+                for (Block.Cursor cursor = block.seek(first); cursor.ordinal() < end; cursor.next()) {
+                    interval.add(cursor.entry());
+                }
+            }
+        }
+    }
+}
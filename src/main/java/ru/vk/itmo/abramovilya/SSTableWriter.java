@@ -0,0 +1,183 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.Config;
+import ru.vk.itmo.Entry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams sorted entries into the block-based table format read by {@link SSTable}.
+ * Keys inside a block are prefix-compressed as described in {@link Block}; with {@link Config.Compression#LZ}
+ * whole blocks are then compressed with {@link LzCodec}.
+ * With a positive prefix length, the distinct leading bytes of that length of the keys go to a second
+ * Bloom filter, which lets prefix scans skip the table; keys shorter than that are left out of it.
+ */
+final class SSTableWriter implements Closeable {
+    static final int TARGET_BLOCK_SIZE = 4 * 1024;
+
+    private final FileChannel channel;
+    private final SegmentBuffer block = new SegmentBuffer(2L * TARGET_BLOCK_SIZE);
+    private final SegmentBuffer restarts = new SegmentBuffer(TARGET_BLOCK_SIZE / Block.RESTART_INTERVAL);
+    private final SegmentBuffer previousKey = new SegmentBuffer(256);
+    private final SegmentBuffer index = new SegmentBuffer(TARGET_BLOCK_SIZE);
+    private final SegmentBuffer frame = new SegmentBuffer(2L * TARGET_BLOCK_SIZE);
+    private final BloomFilter.Builder filter;
+    private final BloomFilter.Builder prefixFilter;
+    private final int prefixLength;
+    private final SegmentBuffer previousPrefix = new SegmentBuffer(Long.BYTES);
+    private final Config.Compression compression;
+    private byte[] compressed = new byte[0];
+    private long dataOffset;
+    private int blockEntryCount;
+    private long blockCount;
+    private long entryCount;
+    private long tombstoneCount;
+
+    SSTableWriter(
+            Path path,
+            long expectedEntryCount,
+            int bloomFilterBitsPerKey,
+            Config.Compression compression,
+            int prefixLength
+    ) throws IOException {
+        this.filter = new BloomFilter.Builder(expectedEntryCount, bloomFilterBitsPerKey);
+        // Sized for the worst case of a distinct prefix per key
+        this.prefixFilter = new BloomFilter.Builder(
+                expectedEntryCount, prefixLength > 0 ? bloomFilterBitsPerKey : 0);
+        this.prefixLength = prefixLength;
+        this.compression = compression;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    void write(Entry<MemorySegment> entry) throws IOException {
+        MemorySegment key = entry.key();
+        MemorySegment value = entry.value();
+        if (blockEntryCount == 0) {
+            index.putLong(dataOffset);
+            index.putInt((int) key.byteSize());
+            index.put(key);
+        }
+        int sharedKeySize = 0;
+        if (blockEntryCount % Block.RESTART_INTERVAL == 0) {
+            restarts.putInt((int) block.size());
+        } else {
+            sharedKeySize = sharedPrefixSize(previousKey.asSegment(), key);
+        }
+        block.putVarInt(sharedKeySize);
+        block.putVarInt((int) key.byteSize() - sharedKeySize);
+        block.putVarInt(value == null ? 0 : (int) value.byteSize() + 1);
+        block.put(key.asSlice(sharedKeySize));
+        if (value == null) {
+            tombstoneCount++;
+        } else {
+            block.put(value);
+        }
+        previousKey.reset();
+        previousKey.put(key);
+        filter.add(key);
+        addPrefix(key);
+        blockEntryCount++;
+        entryCount++;
+
+        if (block.size() + restarts.size() + Block.TRAILER_SIZE >= TARGET_BLOCK_SIZE) {
+            finishBlock();
+        }
+    }
+
+    /**
+     * Returns the number of data bytes written so far, including the pending block.
+     */
+    long dataSize() {
+        return dataOffset + block.size() + restarts.size();
+    }
+
+    void finish() throws IOException {
+        finishBlock();
+        long filterOffset = dataOffset;
+        filter.writeTo(channel);
+        long prefixFilterOffset = channel.position();
+        prefixFilter.writeTo(channel);
+        long indexOffset = channel.position();
+        index.writeTo(channel);
+
+        SegmentBuffer footer = new SegmentBuffer(SSTable.FOOTER_SIZE);
+        footer.putLong(indexOffset);
+        footer.putLong(blockCount);
+        footer.putLong(entryCount);
+        footer.putLong(filterOffset);
+        footer.putLong(filter.hashCount());
+        footer.putLong(tombstoneCount);
+        footer.putLong(compression.ordinal());
+        footer.putLong(prefixFilterOffset);
+        footer.putLong(prefixFilter.hashCount() == 0 ? 0 : prefixLength);
+        footer.writeTo(channel);
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void finishBlock() throws IOException {
+        if (blockEntryCount == 0) {
+            return;
+        }
+        block.put(restarts.asSegment());
+        block.putInt((int) (restarts.size() / Integer.BYTES));
+        block.putInt(blockEntryCount);
+        if (compression == Config.Compression.LZ) {
+            writeCompressed(block.asSegment());
+        } else {
+            block.writeTo(channel);
+            dataOffset += block.size();
+        }
+        blockCount++;
+
+        block.reset();
+        restarts.reset();
+        blockEntryCount = 0;
+    }
+
+    private void writeCompressed(MemorySegment raw) throws IOException {
+        int maxSize = LzCodec.maxCompressedSize(raw.byteSize());
+        if (compressed.length < maxSize) {
+            compressed = new byte[maxSize];
+        }
+        int size = LzCodec.compress(raw, compressed);
+        frame.reset();
+        // Decompressing costs more than reading a few extra bytes, so the codec has to save at least an eighth
+        if (size < raw.byteSize() - raw.byteSize() / 8) {
+            frame.putInt((int) raw.byteSize());
+            frame.put(MemorySegment.ofArray(compressed).asSlice(0, size));
+        } else {
+            frame.putInt(SSTable.UNCOMPRESSED_BLOCK);
+            frame.put(raw);
+        }
+        frame.writeTo(channel);
+        dataOffset += frame.size();
+    }
+
+    private void addPrefix(MemorySegment key) {
+        if (prefixFilter.hashCount() == 0 || key.byteSize() < prefixLength) {
+            return;
+        }
+        MemorySegment prefix = key.asSlice(0, prefixLength);
+        // Keys come sorted, so equal prefixes are adjacent
+        if (previousPrefix.size() == 0 || previousPrefix.asSegment().mismatch(prefix) != -1) {
+            previousPrefix.reset();
+            previousPrefix.put(prefix);
+            prefixFilter.add(prefix);
+        }
+    }
+
+    private static int sharedPrefixSize(MemorySegment previous, MemorySegment key) {
+        long mismatch = previous.mismatch(key);
+        return (int) (mismatch == -1 ? key.byteSize() : mismatch);
+    }
+}
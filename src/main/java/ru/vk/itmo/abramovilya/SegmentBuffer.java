@@ -0,0 +1,103 @@
+package ru.vk.itmo.abramovilya;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Growable heap buffer used to assemble blocks and index sections before they are written out.
+ */
+final class SegmentBuffer {
+    private MemorySegment segment;
+    private long size;
+
+    SegmentBuffer(long initialCapacity) {
+        this.segment = MemorySegment.ofArray(new byte[(int) initialCapacity]);
+    }
+
+    long size() {
+        return size;
+    }
+
+    void putInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        segment.set(ValueLayout.JAVA_INT_UNALIGNED, size, value);
+        size += Integer.BYTES;
+    }
+
+    /**
+     * Appends {@code value} as an unsigned LEB128 varint: 7 bits per byte, low bits first.
+     */
+    void putVarInt(int value) {
+        ensureCapacity(5);
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            segment.set(ValueLayout.JAVA_BYTE, size++, (byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        segment.set(ValueLayout.JAVA_BYTE, size++, (byte) remaining);
+    }
+
+    void setInt(long offset, int value) {
+        segment.set(ValueLayout.JAVA_INT_UNALIGNED, offset, value);
+    }
+
+    void putLong(long value) {
+        ensureCapacity(Long.BYTES);
+        segment.set(ValueLayout.JAVA_LONG_UNALIGNED, size, value);
+        size += Long.BYTES;
+    }
+
+    void put(MemorySegment source) {
+        ensureCapacity(source.byteSize());
+        MemorySegment.copy(source, 0, segment, size, source.byteSize());
+        size += source.byteSize();
+    }
+
+    MemorySegment asSegment() {
+        return segment.asSlice(0, size);
+    }
+
+    void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = asSegment().asByteBuffer();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Writes the content with a single call to {@code output}, which, unlike a channel write, is not aborted
+     * by an interrupt.
+     */
+    void writeTo(DataOutput output) throws IOException {
+        output.write((byte[]) segment.heapBase().orElseThrow(), 0, (int) size);
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    /**
+     * Drops everything after the first {@code newSize} bytes.
+     */
+    void truncate(long newSize) {
+        size = newSize;
+    }
+
+    private void ensureCapacity(long additional) {
+        long required = size + additional;
+        if (required <= segment.byteSize()) {
+            return;
+        }
+        long capacity = Math.max(required, segment.byteSize() * 2);
+        if (capacity > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Buffer is too large: " + capacity);
+        }
+        MemorySegment grown = MemorySegment.ofArray(new byte[(int) capacity]);
+        MemorySegment.copy(segment, 0, grown, 0, size);
+        segment = grown;
+    }
+}
@@ -0,0 +1,321 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.Entry;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Memtable split by key ranges into {@link MemTable} shards with allocators of their own, so that writers
+ * to different ranges touch neither the same skip list nodes nor the same allocator counters.
+ * Shard {@code i} holds the keys in {@code [splitKeys[i - 1], splitKeys[i])}; since the ranges are disjoint
+ * and ordered, a range read just concatenates the shards it covers.
+ */
+final class ShardedMemTable {
+    private final MemorySegment[] splitKeys;
+    private final MemTable[] shards;
+
+    /**
+     * Creates a table with {@code splitKeys.length + 1} shards; the split keys must be strictly ascending.
+     */
+    ShardedMemTable(MemorySegment[] splitKeys) {
+        this.splitKeys = splitKeys;
+        this.shards = new MemTable[splitKeys.length + 1];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new MemTable();
+        }
+    }
+
+    /**
+     * Adds a version of the entry stamped with {@code sequence} and returns the table size in bytes after
+     * the change, like {@link MemTable#upsert}.
+     */
+    long upsert(Entry<MemorySegment> entry, long sequence) {
+        long shardSize = shards[shard(entry.key())].upsert(entry, sequence);
+        if (shards.length == 1) {
+            return shardSize;
+        }
+        return byteSize();
+    }
+
+    Entry<MemorySegment> get(MemorySegment key, long sequence) {
+        return shards[shard(key)].get(key, sequence);
+    }
+
+    /**
+     * Looks up ascending {@code keys} like {@link MemTable#getAll}; every shard gets the run of keys in its range.
+     */
+    void getAll(MemorySegment[] keys, Entry<MemorySegment>[] results, long sequence) {
+        int from = 0;
+        for (int i = 0; i < shards.length && from < keys.length; i++) {
+            int to = i == splitKeys.length ? keys.length : firstNotBefore(keys, splitKeys[i], from);
+            shards[i].getAll(keys, results, from, to, sequence);
+            from = to;
+        }
+    }
+
+    Iterator<Entry<MemorySegment>> get(MemorySegment from, MemorySegment to, long sequence) {
+        int first = from == null ? 0 : shard(from);
+        int last = lastShard(to);
+        if (first >= last) {
+            return shards[first].get(from, to, sequence);
+        }
+        return new ConcatIterator(first, last) {
+            @Override
+            Iterator<Entry<MemorySegment>> open(int shard) {
+                return shards[shard].get(from, to, sequence);
+            }
+        };
+    }
+
+    Iterator<Entry<MemorySegment>> getDescending(MemorySegment from, MemorySegment to, long sequence) {
+        int first = from == null ? 0 : shard(from);
+        int last = lastShard(to);
+        if (first >= last) {
+            return shards[first].getDescending(from, to, sequence);
+        }
+        return new ConcatIterator(last, first) {
+            @Override
+            Iterator<Entry<MemorySegment>> open(int shard) {
+                return shards[shard].getDescending(from, to, sequence);
+            }
+        };
+    }
+
+    EntryCursor cursor(MemorySegment from, MemorySegment to, long sequence) {
+        int first = from == null ? 0 : shard(from);
+        int last = lastShard(to);
+        if (first >= last) {
+            return shards[first].cursor(from, to, sequence);
+        }
+        EntryCursor[] cursors = new EntryCursor[last - first + 1];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = shards[first + i].cursor(from, to, sequence);
+        }
+        return new ShardCursor(first, cursors);
+    }
+
+    /**
+     * Returns the newest version of every key.
+     */
+    Iterable<Entry<MemorySegment>> entries() {
+        return () -> get(null, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns about {@code count} keys that split the table into parts of about the same number of keys,
+     * so that the next memtable can be sharded after the data of this one.
+     * Every shard is split in proportion to its size, and the split keys between non-empty shards are kept.
+     */
+    MemorySegment[] splitKeys(int count) {
+        long size = size();
+        List<MemorySegment> result = new ArrayList<>(count);
+        boolean empty = true;
+        for (int i = 0; i < shards.length; i++) {
+            long shardSize = shards[i].size();
+            if (shardSize == 0) {
+                continue;
+            }
+            if (!empty) {
+                result.add(splitKeys[i - 1]);
+            }
+            empty = false;
+            int parts = (int) ((count + 1) * shardSize / size);
+            result.addAll(Arrays.asList(shards[i].splitKeys(parts - 1)));
+        }
+        return result.toArray(new MemorySegment[0]);
+    }
+
+    long size() {
+        long size = 0;
+        for (MemTable shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    boolean hasTombstones() {
+        for (MemTable shard : shards) {
+            if (shard.hasTombstones()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isEmpty() {
+        for (MemTable shard : shards) {
+            if (!shard.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long byteSize() {
+        long byteSize = 0;
+        for (MemTable shard : shards) {
+            byteSize += shard.byteSize();
+        }
+        return byteSize;
+    }
+
+    /**
+     * Returns the shard holding {@code key}: the number of split keys not greater than it.
+     */
+    private int shard(MemorySegment key) {
+        int low = 0;
+        int high = splitKeys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (MemorySegmentComparator.compare(splitKeys[mid], key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the last shard that may hold keys below {@code to}.
+     */
+    private int lastShard(MemorySegment to) {
+        if (to == null) {
+            return shards.length - 1;
+        }
+        int shard = shard(to);
+        // The range ends right at the first key of the shard
+        return shard > 0 && MemorySegmentComparator.compare(splitKeys[shard - 1], to) == 0 ? shard - 1 : shard;
+    }
+
+    private static int firstNotBefore(MemorySegment[] keys, MemorySegment bound, int from) {
+        int low = from;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (MemorySegmentComparator.compare(keys[mid], bound) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Concatenates the iterators of shards {@code first} to {@code last}, which may go down,
+     * opening each one only when the previous is exhausted.
+     */
+    private abstract static class ConcatIterator implements Iterator<Entry<MemorySegment>> {
+        private final int last;
+        private final int step;
+        private int shard;
+        private Iterator<Entry<MemorySegment>> current = Collections.emptyIterator();
+
+        ConcatIterator(int first, int last) {
+            this.last = last;
+            this.step = first <= last ? 1 : -1;
+            this.shard = first - step;
+        }
+
+        abstract Iterator<Entry<MemorySegment>> open(int shard);
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && shard != last) {
+                shard += step;
+                current = open(shard);
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Entry<MemorySegment> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+
+    /**
+     * Concatenates the cursors of consecutive shards; a seek goes straight to the shard of the key.
+     */
+    private final class ShardCursor implements EntryCursor {
+        private final int first;
+        private final EntryCursor[] cursors;
+        private int index;
+
+        ShardCursor(int first, EntryCursor[] cursors) {
+            this.first = first;
+            this.cursors = cursors;
+            skipExhausted();
+        }
+
+        @Override
+        public void seek(MemorySegment key) {
+            index = key == null ? 0 : Math.min(shard(key) - first, cursors.length - 1);
+            cursors[index].seek(key);
+            skipExhausted();
+        }
+
+        @Override
+        public boolean isValid() {
+            return index < cursors.length;
+        }
+
+        @Override
+        public void next() {
+            cursors[index].next();
+            skipExhausted();
+        }
+
+        @Override
+        public MemorySegment keySegment() {
+            return cursors[index].keySegment();
+        }
+
+        @Override
+        public long keyOffset() {
+            return cursors[index].keyOffset();
+        }
+
+        @Override
+        public long keySize() {
+            return cursors[index].keySize();
+        }
+
+        @Override
+        public MemorySegment valueSegment() {
+            return cursors[index].valueSegment();
+        }
+
+        @Override
+        public long valueOffset() {
+            return cursors[index].valueOffset();
+        }
+
+        @Override
+        public int valueSize() {
+            return cursors[index].valueSize();
+        }
+
+        /**
+         * Moves on to the next shard with entries left, rewinding it, since an earlier seek may have moved it.
+         */
+        private void skipExhausted() {
+            while (index < cursors.length && !cursors[index].isValid()) {
+                index++;
+                if (index < cursors.length) {
+                    cursors[index].seek(null);
+                }
+            }
+        }
+    }
+}
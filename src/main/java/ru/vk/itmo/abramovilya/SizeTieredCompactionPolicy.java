@@ -0,0 +1,50 @@
+package ru.vk.itmo.abramovilya;
+
+import java.util.List;
+
+/**
+ * Merges runs of adjacent tables of similar size. A table joins a run while its size stays within
+ * [{@value #BUCKET_LOW}, {@value #BUCKET_HIGH}] of the run's average size; a run of at least
+ * {@value #MIN_MERGE_WIDTH} tables is merged, newest runs first.
+ * Runs are restricted to adjacent tables so that the merged table can keep their place in age order.
+ * Everything stays on level 0.
+ */
+final class SizeTieredCompactionPolicy implements CompactionPolicy {
+    static final double BUCKET_LOW = 0.5;
+    static final double BUCKET_HIGH = 1.5;
+    static final int MIN_MERGE_WIDTH = 4;
+    static final int MAX_MERGE_WIDTH = 32;
+
+    @Override
+    public Compaction pick(TableSet tableSet) {
+        List<SSTable> ssTables = tableSet.level(0);
+        int start = 0;
+        while (start + MIN_MERGE_WIDTH <= ssTables.size()) {
+            long totalSize = ssTables.get(start).byteSize();
+            int end = start + 1;
+            while (end < ssTables.size() && end - start < MAX_MERGE_WIDTH) {
+                double averageSize = (double) totalSize / (end - start);
+                long size = ssTables.get(end).byteSize();
+                if (size < averageSize * BUCKET_LOW || size > averageSize * BUCKET_HIGH) {
+                    break;
+                }
+                totalSize += size;
+                end++;
+            }
+            if (end - start >= MIN_MERGE_WIDTH) {
+                return new Compaction(List.copyOf(ssTables.subList(start, end)), 0, Long.MAX_VALUE);
+            }
+            start++;
+        }
+        return null;
+    }
+
+    @Override
+    public Compaction pickAll(TableSet tableSet) {
+        List<SSTable> ssTables = tableSet.all();
+        if (ssTables.isEmpty() || (ssTables.size() == 1 && ssTables.getFirst().tombstoneCount() == 0)) {
+            return null;
+        }
+        return new Compaction(ssTables, tableSet.levelCount() - 1, Long.MAX_VALUE);
+    }
+}
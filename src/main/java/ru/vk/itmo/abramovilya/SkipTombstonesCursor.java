@@ -0,0 +1,88 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.Cursor;
+
+import java.lang.foreign.MemorySegment;
+import java.util.NoSuchElementException;
+
+/**
+ * Exposes a merged {@link EntryCursor} as a {@link Cursor}, hiding tombstones.
+ * Keys and values are sliced out of the source segments or copied from them only when asked for.
+ */
+final class SkipTombstonesCursor implements MemorySegmentCursor {
+    private final EntryCursor delegate;
+    private final MemorySegment from;
+
+    SkipTombstonesCursor(EntryCursor delegate, MemorySegment from) {
+        this.delegate = delegate;
+        this.from = from;
+        seek(null);
+    }
+
+    @Override
+    public void seek(MemorySegment key) {
+        boolean belowRange = key == null || (from != null && MemorySegmentComparator.compare(key, from) < 0);
+        delegate.seek(belowRange ? null : key);
+        skipTombstones();
+    }
+
+    @Override
+    public boolean isValid() {
+        return delegate.isValid();
+    }
+
+    @Override
+    public void next() {
+        checkValid();
+        delegate.next();
+        skipTombstones();
+    }
+
+    @Override
+    public MemorySegment key() {
+        checkValid();
+        return delegate.keySegment().asSlice(delegate.keyOffset(), delegate.keySize());
+    }
+
+    @Override
+    public MemorySegment value() {
+        checkValid();
+        return delegate.valueSegment().asSlice(delegate.valueOffset(), delegate.valueSize());
+    }
+
+    @Override
+    public long keySize() {
+        checkValid();
+        return delegate.keySize();
+    }
+
+    @Override
+    public long valueSize() {
+        checkValid();
+        return delegate.valueSize();
+    }
+
+    @Override
+    public void copyKeyTo(MemorySegment target, long offset) {
+        checkValid();
+        MemorySegment.copy(delegate.keySegment(), delegate.keyOffset(), target, offset, delegate.keySize());
+    }
+
+    @Override
+    public void copyValueTo(MemorySegment target, long offset) {
+        checkValid();
+        MemorySegment.copy(delegate.valueSegment(), delegate.valueOffset(), target, offset, delegate.valueSize());
+    }
+
+    private void checkValid() {
+        if (!isValid()) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    private void skipTombstones() {
+        while (delegate.isValid() && delegate.valueSize() == SSTable.TOMBSTONE_SIZE) {
+            delegate.next();
+        }
+    }
+}
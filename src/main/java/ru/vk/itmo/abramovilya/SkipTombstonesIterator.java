@@ -0,0 +1,40 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.Entry;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Hides tombstones, i.e. entries with a {@code null} value, of an already merged stream.
+ */
+final class SkipTombstonesIterator implements Iterator<Entry<MemorySegment>> {
+    private final Iterator<Entry<MemorySegment>> delegate;
+    private Entry<MemorySegment> next;
+
+    SkipTombstonesIterator(Iterator<Entry<MemorySegment>> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && delegate.hasNext()) {
+            Entry<MemorySegment> entry = delegate.next();
+            if (entry.value() != null) {
+                next = entry;
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Entry<MemorySegment> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Entry<MemorySegment> result = next;
+        next = null;
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package ru.vk.itmo.abramovilya;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe bump allocator that carves small blocks out of large off-heap slabs.
+ * A block is identified by a {@code long} address holding the slab index in the high 32 bits and the offset
+ * within the slab in the low ones; blocks are 8-byte aligned, and the very first block gets address 0.
+ * Nothing is freed individually: all slabs belong to one automatic arena and are released together
+ * once the allocator and every segment handed out are unreachable, so readers still holding entries
+ * of a flushed memtable stay safe.
+ */
+final class SlabAllocator {
+    static final long SLAB_SIZE = 256 * 1024;
+    private static final long ALIGNMENT = Long.BYTES;
+    // Larger blocks get a slab of their own rather than wasting the rest of a shared one
+    private static final long MAX_SHARED_BLOCK_SIZE = SLAB_SIZE / 8;
+
+    private final Arena arena = Arena.ofAuto();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    // Address of the first free byte in the current shared slab, or -1 before the first one
+    private final AtomicLong top = new AtomicLong(-1);
+    // Replaced on growth under this
+    private volatile MemorySegment[] slabs = new MemorySegment[0];
+
+    long allocate(long size) {
+        long alignedSize = (size + ALIGNMENT - 1) & -ALIGNMENT;
+        allocatedBytes.addAndGet(alignedSize);
+        if (alignedSize > MAX_SHARED_BLOCK_SIZE) {
+            return addSlab(alignedSize);
+        }
+        while (true) {
+            long current = top.get();
+            if (current >= 0 && offset(current) + alignedSize <= SLAB_SIZE) {
+                if (top.compareAndSet(current, current + alignedSize)) {
+                    return current;
+                }
+            } else {
+                synchronized (this) {
+                    if (top.get() == current) {
+                        long address = addSlab(SLAB_SIZE);
+                        top.set(address + alignedSize);
+                        return address;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the slab holding the block at {@code address}; the block starts at {@link #offset} within it.
+     */
+    MemorySegment slab(long address) {
+        return slabs[(int) (address >>> 32)];
+    }
+
+    static long offset(long address) {
+        return address & 0xFFFF_FFFFL;
+    }
+
+    /**
+     * Returns the number of bytes handed out so far.
+     */
+    long allocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    private synchronized long addSlab(long size) {
+        MemorySegment[] grown = Arrays.copyOf(slabs, slabs.length + 1);
+        grown[slabs.length] = arena.allocate(size, ALIGNMENT);
+        slabs = grown;
+        return (long) (grown.length - 1) << 32;
+    }
+}
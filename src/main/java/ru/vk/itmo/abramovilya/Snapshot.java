@@ -0,0 +1,159 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.Cursor;
+import ru.vk.itmo.Dao;
+import ru.vk.itmo.Entry;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Read-only view of an {@link InMemoryDao} as of the moment it was taken.
+ * It holds on to the memtables and the table set of that moment and reads memtable versions up to
+ * the sequence visible then, so later upserts, flushes and compactions do not show through:
+ * tables replaced by a compaction stay mapped until the last snapshot or iterator over them is dropped.
+ * Every read of the Dao itself goes through a momentary snapshot, so single calls are isolated as well.
+ */
+final class Snapshot implements Dao<MemorySegment, Entry<MemorySegment>> {
+    private final ShardedMemTable memTable;
+    private final ShardedMemTable flushingMemTable;
+    private final TableSet tableSet;
+    private final long sequence;
+
+    Snapshot(ShardedMemTable memTable, ShardedMemTable flushingMemTable, TableSet tableSet, long sequence) {
+        this.memTable = memTable;
+        this.flushingMemTable = flushingMemTable;
+        this.tableSet = tableSet;
+        this.sequence = sequence;
+    }
+
+    @Override
+    public Iterator<Entry<MemorySegment>> get(MemorySegment from, MemorySegment to) {
+        return merge(from, to, tableSet.iterators(from, to));
+    }
+
+    @Override
+    public Iterator<Entry<MemorySegment>> scanPrefix(MemorySegment prefix) {
+        MemorySegment successor = MemorySegmentComparator.prefixSuccessor(prefix);
+        return merge(prefix, successor, tableSet.prefixIterators(prefix, successor));
+    }
+
+    private Iterator<Entry<MemorySegment>> merge(
+            MemorySegment from,
+            MemorySegment to,
+            List<Iterator<Entry<MemorySegment>>> tableIterators
+    ) {
+        List<Iterator<Entry<MemorySegment>>> iterators = new ArrayList<>();
+        iterators.add(memTable.get(from, to, sequence));
+        boolean hasTombstones = memTable.hasTombstones();
+        if (flushingMemTable != null) {
+            iterators.add(flushingMemTable.get(from, to, sequence));
+            hasTombstones |= flushingMemTable.hasTombstones();
+        }
+        iterators.addAll(tableIterators);
+        hasTombstones |= tableSet.hasTombstones();
+        Iterator<Entry<MemorySegment>> merged = MergeIterator.merge(iterators);
+        // Without tombstones in any source there is nothing to hide, so the extra layer is skipped
+        return hasTombstones ? new SkipTombstonesIterator(merged) : merged;
+    }
+
+    /**
+     * Returns a cursor that merges the memtables and tables in place: a scan allocates per block and per table
+     * it passes, and only {@link Cursor#key} and {@link Cursor#value} create views; the copy methods of
+     * {@link MemorySegmentCursor} read an entry without allocating.
+     */
+    @Override
+    public MemorySegmentCursor cursor(MemorySegment from, MemorySegment to) {
+        return new SkipTombstonesCursor(entryCursor(from, to), from);
+    }
+
+    /**
+     * Returns the merged cursor behind {@link #cursor}, tombstones included.
+     */
+    EntryCursor entryCursor(MemorySegment from, MemorySegment to) {
+        List<EntryCursor> cursors = new ArrayList<>();
+        cursors.add(memTable.cursor(from, to, sequence));
+        if (flushingMemTable != null) {
+            cursors.add(flushingMemTable.cursor(from, to, sequence));
+        }
+        cursors.addAll(tableSet.cursors(from, to));
+        return new MergeCursor(cursors);
+    }
+
+    @Override
+    public Iterator<Entry<MemorySegment>> getDescending(MemorySegment from, MemorySegment to) {
+        List<Iterator<Entry<MemorySegment>>> iterators = new ArrayList<>();
+        iterators.add(memTable.getDescending(from, to, sequence));
+        boolean hasTombstones = memTable.hasTombstones();
+        if (flushingMemTable != null) {
+            iterators.add(flushingMemTable.getDescending(from, to, sequence));
+            hasTombstones |= flushingMemTable.hasTombstones();
+        }
+        iterators.addAll(tableSet.descendingIterators(from, to));
+        hasTombstones |= tableSet.hasTombstones();
+        Iterator<Entry<MemorySegment>> merged = MergeIterator.mergeDescending(iterators);
+        return hasTombstones ? new SkipTombstonesIterator(merged) : merged;
+    }
+
+    @Override
+    public Entry<MemorySegment> get(MemorySegment key) {
+        Entry<MemorySegment> entry = memTable.get(key, sequence);
+        if (entry == null && flushingMemTable != null) {
+            entry = flushingMemTable.get(key, sequence);
+        }
+        if (entry == null) {
+            entry = tableSet.get(key);
+        }
+        return entry == null || entry.value() == null ? null : entry;
+    }
+
+    /**
+     * Sorts the keys once and looks them all up in a single forward pass over each memtable and table.
+     */
+    @Override
+    public List<Entry<MemorySegment>> getAll(Collection<MemorySegment> keys) {
+        MemorySegment[] requested = keys.toArray(new MemorySegment[0]);
+        long[] prefixes = new long[requested.length];
+        Integer[] order = new Integer[requested.length];
+        for (int i = 0; i < order.length; i++) {
+            prefixes[i] = MemorySegmentComparator.prefix(requested[i]);
+            order[i] = i;
+        }
+        Arrays.sort(order,
+                (i, j) -> MemorySegmentComparator.compare(requested[i], prefixes[i], requested[j], prefixes[j]));
+        MemorySegment[] sortedKeys = new MemorySegment[requested.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = requested[order[i]];
+        }
+
+        @SuppressWarnings("unchecked")
+        Entry<MemorySegment>[] found = (Entry<MemorySegment>[]) new Entry<?>[sortedKeys.length];
+        memTable.getAll(sortedKeys, found, sequence);
+        if (flushingMemTable != null) {
+            flushingMemTable.getAll(sortedKeys, found, sequence);
+        }
+        tableSet.getAll(sortedKeys, found);
+
+        List<Entry<MemorySegment>> entries = new ArrayList<>(Collections.nCopies(requested.length, null));
+        for (int i = 0; i < order.length; i++) {
+            Entry<MemorySegment> entry = found[i];
+            entries.set(order[i], entry == null || entry.value() == null ? null : entry);
+        }
+        return entries;
+    }
+
+    @Override
+    public void upsert(Entry<MemorySegment> entry) {
+        throw new UnsupportedOperationException("Snapshot is read-only");
+    }
+
+    @Override
+    public Dao<MemorySegment, Entry<MemorySegment>> snapshot() {
+        return this;
+    }
+}
@@ -0,0 +1,221 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.Config;
+import ru.vk.itmo.Entry;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Set of SSTables living under a single directory, arranged in levels as described in {@link TableSet}.
+ * The {@code manifest} file lists live tables level by level, each line being {@code <level> <file name>},
+ * and is replaced atomically on every change, so a table becomes visible only after it is fully written
+ * and an obsolete table is deleted only after it is gone from the manifest. Files not listed in the manifest
+ * are leftovers of interrupted work and are removed on open.
+ * Tables are mapped into automatic arenas: a replaced table is unmapped, and its disk space freed,
+ * once the last reader drops it.
+ */
+final class Storage {
+    private static final String MANIFEST = "manifest";
+    private static final String SSTABLE_PREFIX = "sstable_";
+    private static final String SSTABLE_SUFFIX = ".db";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path basePath;
+    private final int bloomFilterBitsPerKey;
+    private final Config.Compression compression;
+    private final int prefixFilterLength;
+    private final BlockCache blockCache;
+    private volatile TableSet tableSet;
+    private final AtomicLong nextTableNumber;
+
+    Storage(Config config, BlockCache blockCache) throws IOException {
+        this.basePath = config.basePath();
+        this.bloomFilterBitsPerKey = config.bloomFilterBitsPerKey();
+        this.compression = config.compression();
+        this.prefixFilterLength = config.prefixFilterLength();
+        this.blockCache = blockCache;
+        Files.createDirectories(basePath);
+
+        Path manifest = basePath.resolve(MANIFEST);
+        List<String> lines = Files.exists(manifest)
+                ? Files.readAllLines(manifest, StandardCharsets.UTF_8)
+                : List.of();
+        Set<String> liveTableSet = new HashSet<>();
+        for (String line : lines) {
+            liveTableSet.add(line.substring(line.indexOf(' ') + 1));
+        }
+        long maxTableNumber = -1;
+        try (Stream<Path> files = Files.list(basePath)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                if (fileName.endsWith(TMP_SUFFIX)
+                        || (isTableFile(fileName) && !liveTableSet.contains(fileName))) {
+                    Files.delete(file);
+                } else if (isTableFile(fileName)) {
+                    maxTableNumber = Math.max(maxTableNumber, tableNumber(fileName));
+                }
+            }
+        }
+
+        List<List<SSTable>> levels = new ArrayList<>();
+        levels.add(new ArrayList<>());
+        for (String line : lines) {
+            int separator = line.indexOf(' ');
+            // Manifests written before levels were introduced list level 0 tables only
+            int level = separator < 0 ? 0 : Integer.parseInt(line.substring(0, separator));
+            while (levels.size() <= level) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(level).add(open(basePath.resolve(line.substring(separator + 1))));
+        }
+        List<List<SSTable>> immutableLevels = new ArrayList<>(levels.size());
+        for (List<SSTable> level : levels) {
+            immutableLevels.add(List.copyOf(level));
+        }
+        this.tableSet = new TableSet(List.copyOf(immutableLevels));
+        this.nextTableNumber = new AtomicLong(maxTableNumber + 1);
+    }
+
+    /**
+     * Tells whether {@code basePath} holds tables written by a storage, even if all of them were compacted away.
+     */
+    static boolean exists(Path basePath) {
+        return Files.exists(basePath.resolve(MANIFEST));
+    }
+
+    TableSet tableSet() {
+        return tableSet;
+    }
+
+    void flush(Iterable<Entry<MemorySegment>> entries, long expectedEntryCount) throws IOException {
+        List<SSTable> output = write(entries.iterator(), expectedEntryCount, Long.MAX_VALUE);
+        if (output.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            publish(tableSet.withFlushed(output.getFirst()));
+        }
+    }
+
+    /**
+     * Runs {@code compaction}. Tables may be flushed concurrently, but only one compaction may run at a time.
+     * Tombstones are dropped only when nothing older than the inputs is left for them to hide.
+     * A single input that needs no rewriting is moved to the output level as is.
+     */
+    void compact(Compaction compaction) throws IOException {
+        List<SSTable> inputs = compaction.inputs();
+        boolean dropTombstones = tableSet.isOldest(inputs, compaction.outputLevel());
+        if (inputs.size() == 1 && (!dropTombstones || inputs.getFirst().tombstoneCount() == 0)) {
+            synchronized (this) {
+                publish(tableSet.withCompacted(inputs, inputs, compaction.outputLevel()));
+            }
+            return;
+        }
+
+        List<Iterator<Entry<MemorySegment>>> iterators = new ArrayList<>(inputs.size());
+        long expectedEntryCount = 0;
+        long inputSize = 0;
+        for (SSTable input : inputs) {
+            iterators.add(input.iterator(null, null, false));
+            expectedEntryCount += input.entryCount();
+            inputSize += input.byteSize();
+        }
+        Iterator<Entry<MemorySegment>> merged = MergeIterator.merge(iterators);
+        if (dropTombstones) {
+            merged = new SkipTombstonesIterator(merged);
+        }
+        long expectedEntriesPerTable = compaction.maxTableBytes() >= inputSize
+                ? expectedEntryCount
+                : expectedEntryCount * compaction.maxTableBytes() / inputSize + 1;
+        List<SSTable> outputs = write(merged, expectedEntriesPerTable, compaction.maxTableBytes());
+
+        synchronized (this) {
+            publish(tableSet.withCompacted(inputs, outputs, compaction.outputLevel()));
+        }
+        for (SSTable input : inputs) {
+            Files.delete(input.path());
+        }
+    }
+
+    /**
+     * Writes entries into tables of about {@code maxTableBytes} each; nothing is written if there are no entries.
+     */
+    private List<SSTable> write(
+            Iterator<Entry<MemorySegment>> entries,
+            long expectedEntriesPerTable,
+            long maxTableBytes
+    ) throws IOException {
+        List<SSTable> tables = new ArrayList<>();
+        while (entries.hasNext()) {
+            Path tablePath = basePath.resolve(SSTABLE_PREFIX + nextTableNumber.getAndIncrement() + SSTABLE_SUFFIX);
+            Path tmpPath = tmpPath(tablePath);
+            try (SSTableWriter writer = new SSTableWriter(
+                    tmpPath, expectedEntriesPerTable, bloomFilterBitsPerKey, compression, prefixFilterLength)) {
+                while (entries.hasNext() && writer.dataSize() < maxTableBytes) {
+                    writer.write(entries.next());
+                }
+                writer.finish();
+            }
+            Files.move(tmpPath, tablePath, StandardCopyOption.ATOMIC_MOVE);
+            tables.add(open(tablePath));
+        }
+        return tables;
+    }
+
+    // Guarded by this
+    private void publish(TableSet tables) throws IOException {
+        StringBuilder manifest = new StringBuilder();
+        for (int level = 0; level < tables.levelCount(); level++) {
+            for (SSTable table : tables.level(level)) {
+                manifest.append(level).append(' ').append(table.path().getFileName()).append('\n');
+            }
+        }
+        Path manifestPath = basePath.resolve(MANIFEST);
+        Path tmpPath = tmpPath(manifestPath);
+        try (FileChannel channel = FileChannel.open(tmpPath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(manifest.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmpPath, manifestPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        tableSet = tables;
+    }
+
+    private SSTable open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+            return new SSTable(path, tableNumber(path.getFileName().toString()), segment, blockCache);
+        }
+    }
+
+    private static Path tmpPath(Path path) {
+        return path.resolveSibling(path.getFileName() + TMP_SUFFIX);
+    }
+
+    private static boolean isTableFile(String fileName) {
+        return fileName.startsWith(SSTABLE_PREFIX) && fileName.endsWith(SSTABLE_SUFFIX);
+    }
+
+    private static long tableNumber(String fileName) {
+        return Long.parseLong(fileName.substring(SSTABLE_PREFIX.length(), fileName.length() - SSTABLE_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,489 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.Entry;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable snapshot of the live tables arranged in levels.
+ * Level 0 holds flushed tables newest first, and their key ranges may overlap.
+ * Every deeper level holds tables with disjoint key ranges sorted by key, so a key is looked up
+ * in at most one table per level. Data on a level is always newer than data on the levels below it.
+ */
+final class TableSet {
+    static final TableSet EMPTY = new TableSet(List.of(List.of()));
+
+    private static final Comparator<SSTable> BY_FIRST_KEY =
+            (t1, t2) -> MemorySegmentComparator.compare(t1.firstKey(), t2.firstKey());
+
+    // Never empty, the last level is never empty unless it is level 0
+    private final List<List<SSTable>> levels;
+
+    TableSet(List<List<SSTable>> levels) {
+        this.levels = levels;
+    }
+
+    int levelCount() {
+        return levels.size();
+    }
+
+    List<SSTable> level(int level) {
+        return level < levels.size() ? levels.get(level) : List.of();
+    }
+
+    long levelSize(int level) {
+        long size = 0;
+        for (SSTable ssTable : level(level)) {
+            size += ssTable.byteSize();
+        }
+        return size;
+    }
+
+    /**
+     * Returns all tables from the newest to the oldest data.
+     */
+    List<SSTable> all() {
+        List<SSTable> tables = new ArrayList<>();
+        for (List<SSTable> level : levels) {
+            tables.addAll(level);
+        }
+        return tables;
+    }
+
+    boolean hasTombstones() {
+        for (List<SSTable> level : levels) {
+            for (SSTable ssTable : level) {
+                if (ssTable.tombstoneCount() > 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether nothing older than the inputs would be left once they are merged into {@code outputLevel},
+     * so that tombstones have nothing to hide and may be dropped.
+     */
+    boolean isOldest(List<SSTable> inputs, int outputLevel) {
+        if (levels.size() > outputLevel + 1) {
+            return false;
+        }
+        List<SSTable> level0 = levels.getFirst();
+        return outputLevel > 0 || level0.isEmpty() || inputs.contains(level0.getLast());
+    }
+
+    /**
+     * Returns the newest entry for {@code key}, which may be a tombstone, or {@code null}.
+     */
+    Entry<MemorySegment> get(MemorySegment key) {
+        long keyHash = BloomFilter.hash(key);
+        for (SSTable ssTable : levels.getFirst()) {
+            Entry<MemorySegment> entry = ssTable.get(key, keyHash);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        for (int i = 1; i < levels.size(); i++) {
+            List<SSTable> level = levels.get(i);
+            int index = findTable(level, key);
+            if (index < level.size() && MemorySegmentComparator.compare(level.get(index).firstKey(), key) <= 0) {
+                Entry<MemorySegment> entry = level.get(index).get(key, keyHash);
+                if (entry != null) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks up ascending {@code keys}, filling the empty slots of {@code results} with the newest entries,
+     * which may be tombstones. Every table is passed over once, with just the keys within its key range.
+     */
+    void getAll(MemorySegment[] keys, Entry<MemorySegment>[] results) {
+        if (keys.length == 0) {
+            return;
+        }
+        long[] keyHashes = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keyHashes[i] = BloomFilter.hash(keys[i]);
+        }
+        for (SSTable ssTable : levels.getFirst()) {
+            int from = firstNotBefore(keys, ssTable.firstKey(), 0);
+            int to = firstAfter(keys, ssTable.lastKey(), from);
+            ssTable.getAll(keys, keyHashes, results, from, to);
+        }
+        for (int i = 1; i < levels.size(); i++) {
+            List<SSTable> level = levels.get(i);
+            int from = 0;
+            for (int table = findTable(level, keys[0]); table < level.size() && from < keys.length; table++) {
+                SSTable ssTable = level.get(table);
+                from = firstNotBefore(keys, ssTable.firstKey(), from);
+                int to = firstAfter(keys, ssTable.lastKey(), from);
+                ssTable.getAll(keys, keyHashes, results, from, to);
+                from = to;
+            }
+        }
+    }
+
+    private static int firstNotBefore(MemorySegment[] keys, MemorySegment bound, int from) {
+        int low = from;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (MemorySegmentComparator.compare(keys[mid], bound) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int firstAfter(MemorySegment[] keys, MemorySegment bound, int from) {
+        int low = from;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (MemorySegmentComparator.compare(keys[mid], bound) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns iterators over {@code [from, to)} ordered from the newest data to the oldest.
+     */
+    List<Iterator<Entry<MemorySegment>>> iterators(MemorySegment from, MemorySegment to) {
+        List<Iterator<Entry<MemorySegment>>> iterators = new ArrayList<>(levels.getFirst().size() + levels.size());
+        for (SSTable ssTable : levels.getFirst()) {
+            iterators.add(ssTable.iterator(from, to));
+        }
+        for (int i = 1; i < levels.size(); i++) {
+            iterators.add(new LevelIterator(levels.get(i), from, to, null));
+        }
+        return iterators;
+    }
+
+    /**
+     * Returns cursors over {@code [from, to)} ordered from the newest data to the oldest.
+     */
+    List<EntryCursor> cursors(MemorySegment from, MemorySegment to) {
+        List<EntryCursor> cursors = new ArrayList<>(levels.getFirst().size() + levels.size());
+        for (SSTable ssTable : levels.getFirst()) {
+            cursors.add(ssTable.cursor(from, to));
+        }
+        for (int i = 1; i < levels.size(); i++) {
+            cursors.add(new LevelCursor(levels.get(i), from, to));
+        }
+        return cursors;
+    }
+
+    /**
+     * Returns iterators over the keys starting with {@code prefix}, which end before {@code successor},
+     * ordered from the newest data to the oldest. Tables whose key range or prefix filter rules the prefix out
+     * are skipped without reading any of their blocks.
+     */
+    List<Iterator<Entry<MemorySegment>>> prefixIterators(MemorySegment prefix, MemorySegment successor) {
+        List<Iterator<Entry<MemorySegment>>> iterators = new ArrayList<>(levels.getFirst().size() + levels.size());
+        for (SSTable ssTable : levels.getFirst()) {
+            if (MemorySegmentComparator.compare(ssTable.lastKey(), prefix) >= 0
+                    && (successor == null || MemorySegmentComparator.compare(ssTable.firstKey(), successor) < 0)
+                    && ssTable.mightContainPrefix(prefix)) {
+                iterators.add(ssTable.iterator(prefix, successor));
+            }
+        }
+        for (int i = 1; i < levels.size(); i++) {
+            iterators.add(new LevelIterator(levels.get(i), prefix, successor, prefix));
+        }
+        return iterators;
+    }
+
+    /**
+     * Returns iterators over {@code [from, to)} going from the last key to the first,
+     * ordered from the newest data to the oldest.
+     */
+    List<Iterator<Entry<MemorySegment>>> descendingIterators(MemorySegment from, MemorySegment to) {
+        List<Iterator<Entry<MemorySegment>>> iterators = new ArrayList<>(levels.getFirst().size() + levels.size());
+        for (SSTable ssTable : levels.getFirst()) {
+            iterators.add(ssTable.descendingIterator(from, to));
+        }
+        for (int i = 1; i < levels.size(); i++) {
+            iterators.add(new DescendingLevelIterator(levels.get(i), from, to));
+        }
+        return iterators;
+    }
+
+    TableSet withFlushed(SSTable ssTable) {
+        List<List<SSTable>> result = new ArrayList<>(levels);
+        List<SSTable> level0 = new ArrayList<>(levels.getFirst().size() + 1);
+        level0.add(ssTable);
+        level0.addAll(levels.getFirst());
+        result.set(0, List.copyOf(level0));
+        return new TableSet(List.copyOf(result));
+    }
+
+    /**
+     * Replaces {@code inputs} with {@code outputs} on {@code outputLevel}.
+     * On level 0 the outputs take the place of the first input, keeping age order.
+     */
+    TableSet withCompacted(List<SSTable> inputs, List<SSTable> outputs, int outputLevel) {
+        int levelCount = Math.max(levels.size(), outputLevel + 1);
+        List<List<SSTable>> result = new ArrayList<>(levelCount);
+        for (int i = 0; i < levelCount; i++) {
+            List<SSTable> tables = new ArrayList<>();
+            boolean replaced = i != outputLevel;
+            for (SSTable ssTable : level(i)) {
+                if (!inputs.contains(ssTable)) {
+                    tables.add(ssTable);
+                } else if (!replaced) {
+                    tables.addAll(outputs);
+                    replaced = true;
+                }
+            }
+            if (!replaced) {
+                tables.addAll(outputs);
+            }
+            if (i > 0) {
+                tables.sort(BY_FIRST_KEY);
+            }
+            result.add(List.copyOf(tables));
+        }
+        while (result.size() > 1 && result.getLast().isEmpty()) {
+            result.removeLast();
+        }
+        return new TableSet(List.copyOf(result));
+    }
+
+    /**
+     * Returns tables of a deeper level whose key ranges intersect {@code [min, max]}.
+     */
+    static List<SSTable> overlapping(List<SSTable> level, MemorySegment min, MemorySegment max) {
+        int start = findTable(level, min);
+        int end = start;
+        while (end < level.size() && MemorySegmentComparator.compare(level.get(end).firstKey(), max) <= 0) {
+            end++;
+        }
+        return start == end ? List.of() : level.subList(start, end);
+    }
+
+    static MemorySegment minKey(List<SSTable> tables) {
+        return Collections.min(tables, BY_FIRST_KEY).firstKey();
+    }
+
+    static MemorySegment maxKey(List<SSTable> tables) {
+        MemorySegment max = null;
+        for (SSTable ssTable : tables) {
+            if (max == null || MemorySegmentComparator.compare(ssTable.lastKey(), max) > 0) {
+                max = ssTable.lastKey();
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the index of the first table of a deeper level whose last key is not less than {@code key}.
+     */
+    private static int findTable(List<SSTable> level, MemorySegment key) {
+        int low = 0;
+        int high = level.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (MemorySegmentComparator.compare(level.get(mid).lastKey(), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Concatenates the tables of a deeper level, opening each one only when the previous is exhausted.
+     * With a {@code prefix}, tables whose prefix filter rules it out are not opened at all.
+     */
+    private static final class LevelIterator implements Iterator<Entry<MemorySegment>> {
+        private final List<SSTable> level;
+        private final MemorySegment from;
+        private final MemorySegment to;
+        private final MemorySegment prefix;
+        private int nextTable;
+        private Iterator<Entry<MemorySegment>> current = Collections.emptyIterator();
+
+        LevelIterator(List<SSTable> level, MemorySegment from, MemorySegment to, MemorySegment prefix) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.prefix = prefix;
+            this.nextTable = from == null ? 0 : findTable(level, from);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (nextTable == level.size()
+                        || (to != null && MemorySegmentComparator.compare(level.get(nextTable).firstKey(), to) >= 0)) {
+                    return false;
+                }
+                SSTable ssTable = level.get(nextTable++);
+                if (prefix == null || ssTable.mightContainPrefix(prefix)) {
+                    current = ssTable.iterator(from, to);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Entry<MemorySegment> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+
+    /**
+     * Cursor counterpart of {@link LevelIterator}; a seek goes straight to the table that may hold the key.
+     */
+    private static final class LevelCursor implements EntryCursor {
+        private final List<SSTable> level;
+        private final MemorySegment from;
+        private final MemorySegment to;
+        private int table;
+        // Null once the level is exhausted
+        private EntryCursor current;
+
+        LevelCursor(List<SSTable> level, MemorySegment from, MemorySegment to) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            seek(null);
+        }
+
+        @Override
+        public void seek(MemorySegment key) {
+            MemorySegment target = key == null ? from : key;
+            table = target == null ? 0 : findTable(level, target);
+            open(key);
+        }
+
+        @Override
+        public boolean isValid() {
+            return current != null;
+        }
+
+        @Override
+        public void next() {
+            current.next();
+            if (!current.isValid()) {
+                table++;
+                open(null);
+            }
+        }
+
+        @Override
+        public MemorySegment keySegment() {
+            return current.keySegment();
+        }
+
+        @Override
+        public long keyOffset() {
+            return current.keyOffset();
+        }
+
+        @Override
+        public long keySize() {
+            return current.keySize();
+        }
+
+        @Override
+        public MemorySegment valueSegment() {
+            return current.valueSegment();
+        }
+
+        @Override
+        public long valueOffset() {
+            return current.valueOffset();
+        }
+
+        @Override
+        public int valueSize() {
+            return current.valueSize();
+        }
+
+        /**
+         * Opens the current table at {@code key}, moving on to the next tables until one has entries in range.
+         */
+        private void open(MemorySegment key) {
+            MemorySegment target = key;
+            for (; table < level.size(); table++) {
+                SSTable ssTable = level.get(table);
+                if (to != null && MemorySegmentComparator.compare(ssTable.firstKey(), to) >= 0) {
+                    break;
+                }
+                current = ssTable.cursor(from, to);
+                if (target != null) {
+                    current.seek(target);
+                    target = null;
+                }
+                if (current.isValid()) {
+                    return;
+                }
+            }
+            current = null;
+        }
+    }
+
+    /**
+     * Concatenates the tables of a deeper level from the last one back, opening each one only
+     * when the next is exhausted.
+     */
+    private static final class DescendingLevelIterator implements Iterator<Entry<MemorySegment>> {
+        private final List<SSTable> level;
+        private final MemorySegment from;
+        private final MemorySegment to;
+        private int nextTable;
+        private Iterator<Entry<MemorySegment>> current = Collections.emptyIterator();
+
+        DescendingLevelIterator(List<SSTable> level, MemorySegment from, MemorySegment to) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            // The first table ending at or after the upper bound is the last one that may hold keys below it
+            this.nextTable = to == null ? level.size() - 1 : Math.min(findTable(level, to), level.size() - 1);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (nextTable < 0) {
+                    return false;
+                }
+                SSTable ssTable = level.get(nextTable--);
+                if (from != null && MemorySegmentComparator.compare(ssTable.lastKey(), from) < 0) {
+                    return false;
+                }
+                current = ssTable.descendingIterator(from, to);
+            }
+            return true;
+        }
+
+        @Override
+        public Entry<MemorySegment> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
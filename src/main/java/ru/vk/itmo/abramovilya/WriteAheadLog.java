@@ -0,0 +1,339 @@
+package ru.vk.itmo.abramovilya;
+
+import ru.vk.itmo.BaseEntry;
+import ru.vk.itmo.Config;
+import ru.vk.itmo.Entry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of upserts that are not persisted in tables yet.
+ * The log is a sequence of frames {@code payloadSize:int checksum:int payload}, where the payload is a batch of
+ * records {@code keySize:int key valueSize:int value} with the value size of a tombstone being -1,
+ * and the checksum is CRC32C of the payload. A torn frame at the end of a log is left by a crash in the middle
+ * of a write and is ignored on replay.
+ * Writers are grouped: records appended while a batch is being written go to disk together with the next batch,
+ * so concurrent writers share a single write and, depending on {@link Config.Durability}, a single fsync.
+ * A new log file is started whenever the memtable is swapped out, so the previous one can be deleted
+ * as soon as that memtable is flushed.
+ * The file is written through {@link RandomAccessFile} rather than a channel, since an interrupted writer
+ * would close the channel under all the others.
+ */
+final class WriteAheadLog implements Closeable {
+    private static final String LOG_PREFIX = "wal_";
+    private static final String LOG_SUFFIX = ".log";
+    private static final int FRAME_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int INITIAL_BATCH_SIZE = 64 * 1024;
+
+    private final Path basePath;
+    private final Config.Durability durability;
+    private final ScheduledExecutorService syncExecutor;
+    // Used by the writing thread only
+    private final CRC32C checksum = new CRC32C();
+    private volatile RandomAccessFile file;
+    // Guarded by this; batches start with room for the frame header
+    private Path path;
+    private long nextLogNumber;
+    private SegmentBuffer pending = newBatch();
+    private SegmentBuffer spare = newBatch();
+    private long appendedCount;
+    private long writtenCount;
+    private boolean writing;
+    private IOException failure;
+    private boolean closed;
+
+    WriteAheadLog(Path basePath, Config.Durability durability, long syncIntervalMillis) throws IOException {
+        this.basePath = basePath;
+        this.durability = durability;
+        this.path = basePath.resolve(LOG_PREFIX + nextLogNumber++ + LOG_SUFFIX);
+        this.file = open(path);
+        if (durability == Config.Durability.PERIODIC) {
+            syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "abramovilya-wal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncExecutor.scheduleWithFixedDelay(this::sync, syncIntervalMillis, syncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            syncExecutor = null;
+        }
+    }
+
+    /**
+     * Returns existing logs, oldest first.
+     */
+    static List<Path> logs(Path basePath) throws IOException {
+        List<Path> logs = new ArrayList<>();
+        try (Stream<Path> files = Files.list(basePath)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                if (fileName.startsWith(LOG_PREFIX) && fileName.endsWith(LOG_SUFFIX)) {
+                    logs.add(file);
+                }
+            }
+        }
+        logs.sort(Comparator.comparingLong(WriteAheadLog::logNumber));
+        return logs;
+    }
+
+    /**
+     * Feeds the records of {@code log} to {@code consumer} in the order they were appended.
+     */
+    static void replay(Path log, Consumer<Entry<MemorySegment>> consumer) throws IOException {
+        MemorySegment data = MemorySegment.ofArray(Files.readAllBytes(log));
+        CRC32C crc = new CRC32C();
+        long offset = 0;
+        while (offset + FRAME_HEADER_SIZE <= data.byteSize()) {
+            int payloadSize = data.get(ValueLayout.JAVA_INT_UNALIGNED, offset);
+            int expectedChecksum = data.get(ValueLayout.JAVA_INT_UNALIGNED, offset + Integer.BYTES);
+            long payloadOffset = offset + FRAME_HEADER_SIZE;
+            if (payloadSize < 0 || payloadOffset + payloadSize > data.byteSize()) {
+                return;
+            }
+            MemorySegment payload = data.asSlice(payloadOffset, payloadSize);
+            crc.reset();
+            crc.update(payload.asByteBuffer());
+            if ((int) crc.getValue() != expectedChecksum) {
+                return;
+            }
+            long recordOffset = 0;
+            while (recordOffset < payloadSize) {
+                int keySize = payload.get(ValueLayout.JAVA_INT_UNALIGNED, recordOffset);
+                MemorySegment key = payload.asSlice(recordOffset + Integer.BYTES, keySize);
+                recordOffset += Integer.BYTES + keySize;
+                int valueSize = payload.get(ValueLayout.JAVA_INT_UNALIGNED, recordOffset);
+                recordOffset += Integer.BYTES;
+                MemorySegment value = null;
+                if (valueSize != SSTable.TOMBSTONE_SIZE) {
+                    value = payload.asSlice(recordOffset, valueSize);
+                    recordOffset += valueSize;
+                }
+                consumer.accept(new BaseEntry<>(key, value));
+            }
+            offset = payloadOffset + payloadSize;
+        }
+    }
+
+    /**
+     * Buffers {@code entries} and returns the ticket to {@link #commit} them with.
+     * Entries appended by one call always end up in the same frame, so they are replayed all or none;
+     * if one of them cannot be buffered, none of them is.
+     */
+    synchronized long append(Iterable<? extends Entry<MemorySegment>> entries) throws IOException {
+        checkFailure();
+        long start = pending.size();
+        try {
+            for (Entry<MemorySegment> entry : entries) {
+                MemorySegment key = entry.key();
+                MemorySegment value = entry.value();
+                pending.putInt((int) key.byteSize());
+                pending.put(key);
+                if (value == null) {
+                    pending.putInt(SSTable.TOMBSTONE_SIZE);
+                } else {
+                    pending.putInt((int) value.byteSize());
+                    pending.put(value);
+                }
+            }
+        } catch (RuntimeException e) {
+            pending.truncate(start);
+            throw e;
+        }
+        return ++appendedCount;
+    }
+
+    /**
+     * Waits until the record with {@code ticket} is written, writing the pending batch if no one else is.
+     * A record written before the log failed still commits, while every record after it fails.
+     * The wait is not interruptible, since the caller has to learn the fate of its record either way;
+     * an interrupt is kept for the caller to see.
+     */
+    void commit(long ticket) throws IOException {
+        SegmentBuffer batch;
+        long batchEnd;
+        synchronized (this) {
+            boolean interrupted = false;
+            while (writing && writtenCount < ticket) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (writtenCount >= ticket) {
+                return;
+            }
+            checkFailure();
+            writing = true;
+            batch = pending;
+            pending = spare;
+            batchEnd = appendedCount;
+        }
+        IOException error = null;
+        try {
+            writeFrame(batch);
+            if (durability == Config.Durability.SYNC) {
+                file.getFD().sync();
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+        synchronized (this) {
+            clear(batch);
+            spare = batch;
+            if (error == null) {
+                writtenCount = batchEnd;
+            } else {
+                failure = error;
+            }
+            writing = false;
+            notifyAll();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Fails the log for good after a record was appended but cannot be committed,
+     * so that no later record is committed and replayed without it.
+     */
+    synchronized void fail() {
+        if (failure == null) {
+            failure = new IOException("A logged write could not be applied");
+        }
+    }
+
+    /**
+     * Writes out and syncs the current log and starts a new one. Appends must be held off by the caller.
+     *
+     * @return the finished log, to be deleted once its records are persisted elsewhere
+     */
+    synchronized Path rotate() throws IOException {
+        while (writing) {
+            awaitWriter();
+        }
+        checkFailure();
+        Path finished = path;
+        try {
+            if (pending.size() > FRAME_HEADER_SIZE) {
+                writeFrame(pending);
+                clear(pending);
+            }
+            file.getFD().sync();
+            file.close();
+            writtenCount = appendedCount;
+            notifyAll();
+            path = basePath.resolve(LOG_PREFIX + nextLogNumber++ + LOG_SUFFIX);
+            file = open(path);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+        return finished;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (syncExecutor != null) {
+            syncExecutor.shutdownNow();
+        }
+        while (writing) {
+            awaitWriter();
+        }
+        // Records pending after a failure belong to writes that failed
+        if (failure == null && pending.size() > FRAME_HEADER_SIZE) {
+            writeFrame(pending);
+            clear(pending);
+        }
+        if (durability != Config.Durability.BUFFERED) {
+            file.getFD().sync();
+        }
+        file.close();
+    }
+
+    private void sync() {
+        RandomAccessFile current = file;
+        try {
+            current.getFD().sync();
+        } catch (IOException e) {
+            synchronized (this) {
+                // A log rotated or closed meanwhile has been synced on the way
+                if (current == file && !closed) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void writeFrame(SegmentBuffer batch) throws IOException {
+        checksum.reset();
+        checksum.update(batch.asSegment().asSlice(FRAME_HEADER_SIZE).asByteBuffer());
+        batch.setInt(0, (int) batch.size() - FRAME_HEADER_SIZE);
+        batch.setInt(Integer.BYTES, (int) checksum.getValue());
+        batch.writeTo(file);
+    }
+
+    private static SegmentBuffer newBatch() {
+        SegmentBuffer batch = new SegmentBuffer(INITIAL_BATCH_SIZE);
+        clear(batch);
+        return batch;
+    }
+
+    private static void clear(SegmentBuffer batch) {
+        batch.reset();
+        batch.putInt(0);
+        batch.putInt(0);
+    }
+
+    // Guarded by this
+    private void awaitWriter() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the write-ahead log");
+        }
+    }
+
+    // Guarded by this
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Write-ahead log failed", failure);
+        }
+    }
+
+    private static RandomAccessFile open(Path path) throws IOException {
+        if (Files.exists(path)) {
+            throw new FileAlreadyExistsException(path.toString());
+        }
+        return new RandomAccessFile(path.toFile(), "rw");
+    }
+
+    private static long logNumber(Path log) {
+        String fileName = log.getFileName().toString();
+        return Long.parseLong(fileName.substring(LOG_PREFIX.length(), fileName.length() - LOG_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,80 @@
+package ru.vk.itmo.test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Finds every {@link DaoFactory} on the classpath, whatever stage it has reached, the same way the tests do.
+ */
+public final class DaoFactories {
+    private static final String CLASS_SUFFIX = ".class";
+
+    private DaoFactories() {
+    }
+
+    public static List<String> discover() {
+        Path root;
+        try {
+            root = Path.of(DaoFactory.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+        List<String> factories = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                if (!fileName.endsWith(CLASS_SUFFIX)) {
+                    continue;
+                }
+                String relative = root.relativize(file).toString();
+                String className = relative.substring(0, relative.length() - CLASS_SUFFIX.length())
+                        .replace(file.getFileSystem().getSeparator(), ".");
+                if (load(className).isAnnotationPresent(DaoFactory.class)) {
+                    factories.add(className);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        factories.sort(null);
+        return factories;
+    }
+
+    /**
+     * Instantiates the factory named either by its class name or by the {@code ru.vk.itmo.test} subpackage
+     * it lives in, such as {@code abramovilya}.
+     */
+    public static DaoFactory.Factory<?, ?> create(String name) {
+        String className = name;
+        if (!name.contains(".")) {
+            String prefix = DaoFactory.class.getPackageName() + "." + name + ".";
+            className = discover().stream()
+                    .filter(factory -> factory.startsWith(prefix))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No DaoFactory in package " + name));
+        }
+        return instantiate(className);
+    }
+
+    private static DaoFactory.Factory<?, ?> instantiate(String className) {
+        try {
+            return (DaoFactory.Factory<?, ?>) load(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot instantiate " + className, e);
+        }
+    }
+
+    private static Class<?> load(String className) {
+        try {
+            return Class.forName(className, false, DaoFactory.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -41,6 +41,10 @@ public @interface DaoFactory {
             return ((TestDao<?,?>)dao).reopen();
         }
 
+        static Dao<String, Entry<String>> reopen(Dao<String, Entry<String>> dao, Config config) throws IOException {
+            return ((TestDao<?,?>)dao).reopen(config);
+        }
+
         default Dao<String, Entry<String>> createStringDao(Config config) throws IOException {
             return new TestDao<>(this, config);
         }
@@ -2,11 +2,16 @@ package ru.vk.itmo.test;
 
 import ru.vk.itmo.BaseEntry;
 import ru.vk.itmo.Config;
+import ru.vk.itmo.Cursor;
 import ru.vk.itmo.Dao;
 import ru.vk.itmo.Entry;
+import ru.vk.itmo.WriteBatch;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 class TestDao<Data, E extends Entry<Data>> implements Dao<String, Entry<String>> {
 
@@ -17,9 +22,13 @@ class TestDao<Data, E extends Entry<Data>> implements Dao<String, Entry<String>>
     final String name;
 
     TestDao(DaoFactory.Factory<Data, E> factory, Config config) throws IOException {
+        this(factory, config, factory.createDao(config));
+    }
+
+    private TestDao(DaoFactory.Factory<Data, E> factory, Config config, Dao<Data, E> delegate) {
         this.factory = factory;
         this.config = config;
-        delegate = factory.createDao(config);
+        this.delegate = delegate;
 
         Class<?> delegateClass = delegate.getClass();
         String packageName = delegateClass.getPackageName();
@@ -32,6 +41,10 @@ class TestDao<Data, E extends Entry<Data>> implements Dao<String, Entry<String>>
         return new TestDao<>(factory, config);
     }
 
+    public Dao<String, Entry<String>> reopen(Config config) throws IOException {
+        return new TestDao<>(factory, config);
+    }
+
     @Override
     public Entry<String> get(String key) {
         E result = delegate.get(factory.fromString(key));
@@ -44,12 +57,69 @@ class TestDao<Data, E extends Entry<Data>> implements Dao<String, Entry<String>>
         );
     }
 
+    @Override
+    public List<Entry<String>> getAll(Collection<String> keys) {
+        List<Data> delegateKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            delegateKeys.add(factory.fromString(key));
+        }
+        List<E> results = delegate.getAll(delegateKeys);
+        List<Entry<String>> entries = new ArrayList<>(results.size());
+        for (E result : results) {
+            entries.add(result == null
+                    ? null
+                    : new BaseEntry<>(factory.toString(result.key()), factory.toString(result.value())));
+        }
+        return entries;
+    }
+
     @Override
     public Iterator<Entry<String>> get(String from, String to) {
-        Iterator<E> iterator = delegate.get(
-                factory.fromString(from),
-                factory.fromString(to)
-        );
+        return toStrings(delegate.get(factory.fromString(from), factory.fromString(to)));
+    }
+
+    @Override
+    public Iterator<Entry<String>> scanPrefix(String prefix) {
+        return toStrings(delegate.scanPrefix(factory.fromString(prefix)));
+    }
+
+    @Override
+    public Iterator<Entry<String>> getDescending(String from, String to) {
+        return toStrings(delegate.getDescending(factory.fromString(from), factory.fromString(to)));
+    }
+
+    @Override
+    public Cursor<String> cursor(String from, String to) {
+        Cursor<Data> cursor = delegate.cursor(factory.fromString(from), factory.fromString(to));
+        return new Cursor<>() {
+            @Override
+            public void seek(String key) {
+                cursor.seek(factory.fromString(key));
+            }
+
+            @Override
+            public boolean isValid() {
+                return cursor.isValid();
+            }
+
+            @Override
+            public void next() {
+                cursor.next();
+            }
+
+            @Override
+            public String key() {
+                return factory.toString(cursor.key());
+            }
+
+            @Override
+            public String value() {
+                return factory.toString(cursor.value());
+            }
+        };
+    }
+
+    private Iterator<Entry<String>> toStrings(Iterator<E> iterator) {
         return new Iterator<>() {
             @Override
             public boolean hasNext() {
@@ -75,11 +145,33 @@ class TestDao<Data, E extends Entry<Data>> implements Dao<String, Entry<String>>
         delegate.upsert(factory.fromBaseEntry(e));
     }
 
+    @Override
+    public void write(WriteBatch<Entry<String>> batch) {
+        WriteBatch<E> delegateBatch = new WriteBatch<>();
+        for (Entry<String> entry : batch) {
+            delegateBatch.upsert(factory.fromBaseEntry(new BaseEntry<>(
+                    factory.fromString(entry.key()),
+                    factory.fromString(entry.value())
+            )));
+        }
+        delegate.write(delegateBatch);
+    }
+
+    @Override
+    public Dao<String, Entry<String>> snapshot() {
+        return new TestDao<>(factory, config, delegate.snapshot());
+    }
+
     @Override
     public void flush() throws IOException {
         delegate.flush();
     }
 
+    @Override
+    public void compact() throws IOException {
+        delegate.compact();
+    }
+
     @Override
     public void close() throws IOException {
         if (delegate != null) {
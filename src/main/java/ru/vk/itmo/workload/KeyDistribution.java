@@ -0,0 +1,41 @@
+package ru.vk.itmo.workload;
+
+import java.util.SplittableRandom;
+
+/**
+ * Picks the number of an existing record, where records are numbered in insertion order.
+ */
+public enum KeyDistribution {
+    /* Every record is equally likely. */
+    UNIFORM {
+        @Override
+        Chooser chooser() {
+            return (random, recordCount) -> random.nextLong(recordCount);
+        }
+    },
+    /* A few records are hot; since keys are hashed, the hot ones are scattered over the key space. */
+    ZIPFIAN {
+        @Override
+        Chooser chooser() {
+            ZipfianGenerator zipfian = new ZipfianGenerator();
+            return zipfian::next;
+        }
+    },
+    /* The most recently inserted records are the hot ones. */
+    LATEST {
+        @Override
+        Chooser chooser() {
+            ZipfianGenerator zipfian = new ZipfianGenerator();
+            return (random, recordCount) -> recordCount - 1 - zipfian.next(random, recordCount);
+        }
+    };
+
+    /**
+     * Returns a new chooser, which is not thread-safe.
+     */
+    abstract Chooser chooser();
+
+    interface Chooser {
+        long next(SplittableRandom random, long recordCount);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.vk.itmo.workload;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds: every power of two is split into
+ * 64 buckets, so percentiles are off by less than 2% at any scale.
+ * Not thread-safe; each worker records into its own histogram and they are merged at the end.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long maxValue;
+
+    void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts[bucket(value)]++;
+        totalCount++;
+        maxValue = Math.max(maxValue, value);
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    long totalCount() {
+        return totalCount;
+    }
+
+    long maxValue() {
+        return maxValue;
+    }
+
+    /**
+     * Returns the smallest recorded value such that {@code percentile} percent of values are not greater,
+     * rounded to the upper bound of its bucket.
+     */
+    long percentile(double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(totalCount * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    private static int bucket(long value) {
+        int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    private static long upperBound(int bucket) {
+        int shift = bucket >>> SUB_BUCKET_BITS;
+        long mantissa = bucket & ((1L << SUB_BUCKET_BITS) - 1);
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,87 @@
+package ru.vk.itmo.workload;
+
+import java.util.Locale;
+
+/**
+ * Operation mix in the spirit of the YCSB core workloads; proportions add up to 1.
+ */
+public record Workload(
+        String name,
+        double readProportion,
+        double updateProportion,
+        double insertProportion,
+        double scanProportion,
+        double readModifyWriteProportion,
+        KeyDistribution distribution,
+        int maxScanLength
+) {
+    private static final int DEFAULT_MAX_SCAN_LENGTH = 100;
+
+    public static Workload preset(String name) {
+        return switch (name.toUpperCase(Locale.ROOT)) {
+            // Update heavy: session store recording recent actions
+            case "A" -> new Workload("A", 0.5, 0.5, 0, 0, 0, KeyDistribution.ZIPFIAN, 0);
+            // Read mostly: photo tagging
+            case "B" -> new Workload("B", 0.95, 0.05, 0, 0, 0, KeyDistribution.ZIPFIAN, 0);
+            // Read only: user profile cache
+            case "C" -> new Workload("C", 1, 0, 0, 0, 0, KeyDistribution.ZIPFIAN, 0);
+            // Read latest: user status updates
+            case "D" -> new Workload("D", 0.95, 0, 0.05, 0, 0, KeyDistribution.LATEST, 0);
+            // Short ranges: threaded conversations
+            case "E" -> new Workload("E", 0, 0, 0.05, 0.95, 0, KeyDistribution.ZIPFIAN, DEFAULT_MAX_SCAN_LENGTH);
+            // Read-modify-write: user database
+            case "F" -> new Workload("F", 0.5, 0, 0, 0, 0.5, KeyDistribution.ZIPFIAN, 0);
+            default -> throw new IllegalArgumentException("Unknown workload " + name + ", expected one of A-F");
+        };
+    }
+
+    public Workload withDistribution(KeyDistribution keyDistribution) {
+        return new Workload(name, readProportion, updateProportion, insertProportion, scanProportion,
+                readModifyWriteProportion, keyDistribution, maxScanLength);
+    }
+
+    public Workload withMaxScanLength(int scanLength) {
+        return new Workload(name, readProportion, updateProportion, insertProportion, scanProportion,
+                readModifyWriteProportion, distribution, scanLength);
+    }
+
+    /**
+     * Maps a uniform {@code random} in {@code [0, 1)} to an operation according to the proportions.
+     */
+    Operation operation(double random) {
+        double bound = readProportion;
+        if (random < bound) {
+            return Operation.READ;
+        }
+        bound += updateProportion;
+        if (random < bound) {
+            return Operation.UPDATE;
+        }
+        bound += insertProportion;
+        if (random < bound) {
+            return Operation.INSERT;
+        }
+        bound += scanProportion;
+        if (random < bound) {
+            return Operation.SCAN;
+        }
+        return Operation.READ_MODIFY_WRITE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "workload %s: read %.0f%%, update %.0f%%, insert %.0f%%, scan %.0f%% (up to %d), "
+                        + "read-modify-write %.0f%%, %s keys",
+                name, readProportion * 100, updateProportion * 100, insertProportion * 100, scanProportion * 100,
+                maxScanLength, readModifyWriteProportion * 100, distribution.name().toLowerCase(Locale.ROOT));
+    }
+
+    enum Operation {
+        READ,
+        UPDATE,
+        INSERT,
+        SCAN,
+        READ_MODIFY_WRITE
+    }
+}
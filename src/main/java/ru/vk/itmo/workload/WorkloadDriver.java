@@ -0,0 +1,186 @@
+package ru.vk.itmo.workload;
+
+import ru.vk.itmo.BaseEntry;
+import ru.vk.itmo.Dao;
+import ru.vk.itmo.Entry;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads records into a Dao and then runs a {@link Workload} against it from several threads,
+ * recording the latency of every operation.
+ * Keys are {@code "user"} followed by a hash of the record number, as in YCSB, so records inserted one after
+ * another land all over the key space. Values are taken from a pool of random strings.
+ */
+final class WorkloadDriver<D, E extends Entry<D>> {
+    private static final int VALUE_POOL_SIZE = 1024;
+    private static final long FNV_OFFSET_BASIS = 0xCBF2_9CE4_8422_2325L;
+    private static final long FNV_PRIME = 0x100_0000_01B3L;
+
+    private final DaoFactory.Factory<D, E> factory;
+    private final Dao<D, E> dao;
+    private final Workload workload;
+    private final List<D> values = new ArrayList<>(VALUE_POOL_SIZE);
+    private final AtomicLong nextRecord = new AtomicLong();
+    // Records below this number are known to be inserted
+    private final AtomicLong insertedCount = new AtomicLong();
+
+    WorkloadDriver(DaoFactory.Factory<D, E> factory, Dao<D, E> dao, Workload workload, int valueSize, long seed) {
+        this.factory = factory;
+        this.dao = dao;
+        this.workload = workload;
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < VALUE_POOL_SIZE; i++) {
+            StringBuilder value = new StringBuilder(valueSize);
+            for (int j = 0; j < valueSize; j++) {
+                value.append((char) random.nextInt(' ', '~' + 1));
+            }
+            values.add(factory.fromString(value.toString()));
+        }
+    }
+
+    /**
+     * Inserts records {@code [0, recordCount)} from {@code threadCount} threads and returns the time it took.
+     */
+    Result load(long recordCount, int threadCount, long seed) throws InterruptedException {
+        return execute(threadCount, seed, (random, histograms, thread) -> {
+            for (long record = thread; record < recordCount; record += threadCount) {
+                long start = System.nanoTime();
+                upsert(record, random);
+                histograms.get(Workload.Operation.INSERT).record(System.nanoTime() - start);
+            }
+        }, () -> {
+            nextRecord.set(recordCount);
+            insertedCount.set(recordCount);
+        });
+    }
+
+    /**
+     * Runs {@code operationCount} operations of the workload spread evenly over {@code threadCount} threads.
+     */
+    Result run(long operationCount, int threadCount, long seed) throws InterruptedException {
+        return execute(threadCount, seed, (random, histograms, thread) -> {
+            KeyDistribution.Chooser chooser = workload.distribution().chooser();
+            long operations = operationCount / threadCount + (thread < operationCount % threadCount ? 1 : 0);
+            for (long i = 0; i < operations; i++) {
+                Workload.Operation operation = workload.operation(random.nextDouble());
+                long start = System.nanoTime();
+                perform(operation, chooser, random);
+                histograms.get(operation).record(System.nanoTime() - start);
+            }
+        }, () -> {
+        });
+    }
+
+    private void perform(Workload.Operation operation, KeyDistribution.Chooser chooser, SplittableRandom random) {
+        switch (operation) {
+            case READ -> dao.get(key(chooser.next(random, insertedCount.get())));
+            case UPDATE -> upsert(chooser.next(random, insertedCount.get()), random);
+            case INSERT -> {
+                long record = nextRecord.getAndIncrement();
+                upsert(record, random);
+                // Inserts may complete out of order, in which case a read may briefly miss the last few records
+                insertedCount.accumulateAndGet(record + 1, Math::max);
+            }
+            case SCAN -> {
+                int length = 1 + random.nextInt(workload.maxScanLength());
+                Iterator<E> iterator = dao.allFrom(key(chooser.next(random, insertedCount.get())));
+                for (int i = 0; i < length && iterator.hasNext(); i++) {
+                    iterator.next();
+                }
+            }
+            case READ_MODIFY_WRITE -> {
+                long record = chooser.next(random, insertedCount.get());
+                dao.get(key(record));
+                upsert(record, random);
+            }
+            default -> throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    private void upsert(long record, SplittableRandom random) {
+        dao.upsert(factory.fromBaseEntry(new BaseEntry<>(key(record), values.get(random.nextInt(VALUE_POOL_SIZE)))));
+    }
+
+    private D key(long record) {
+        return factory.fromString("user" + Long.toUnsignedString(fnvHash(record)));
+    }
+
+    private static long fnvHash(long value) {
+        long hash = FNV_OFFSET_BASIS;
+        long remaining = value;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash ^= remaining & 0xFF;
+            hash *= FNV_PRIME;
+            remaining >>>= Byte.SIZE;
+        }
+        return hash;
+    }
+
+    private Result execute(int threadCount, long seed, Task task, Runnable onSuccess) throws InterruptedException {
+        List<Map<Workload.Operation, LatencyHistogram>> threadHistograms = new ArrayList<>(threadCount);
+        List<Thread> threads = new ArrayList<>(threadCount);
+        List<Throwable> failures = new ArrayList<>();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int i = 0; i < threadCount; i++) {
+            Map<Workload.Operation, LatencyHistogram> histograms = new EnumMap<>(Workload.Operation.class);
+            for (Workload.Operation operation : Workload.Operation.values()) {
+                histograms.put(operation, new LatencyHistogram());
+            }
+            threadHistograms.add(histograms);
+            int thread = i;
+            SplittableRandom random = seeds.split();
+            threads.add(new Thread(() -> {
+                try {
+                    task.run(random, histograms, thread);
+                } catch (RuntimeException | Error e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }, "workload-" + i));
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        if (!failures.isEmpty()) {
+            IllegalStateException failure = new IllegalStateException("Workload failed", failures.getFirst());
+            failures.stream().skip(1).forEach(failure::addSuppressed);
+            throw failure;
+        }
+        onSuccess.run();
+
+        Map<Workload.Operation, LatencyHistogram> merged = new EnumMap<>(Workload.Operation.class);
+        for (Map<Workload.Operation, LatencyHistogram> histograms : threadHistograms) {
+            histograms.forEach((operation, histogram) -> {
+                if (histogram.totalCount() > 0) {
+                    merged.computeIfAbsent(operation, o -> new LatencyHistogram()).add(histogram);
+                }
+            });
+        }
+        return new Result(elapsedNanos, merged);
+    }
+
+    private interface Task {
+        void run(SplittableRandom random, Map<Workload.Operation, LatencyHistogram> histograms, int thread);
+    }
+
+    record Result(long elapsedNanos, Map<Workload.Operation, LatencyHistogram> histograms) {
+        long operationCount() {
+            return histograms.values().stream().mapToLong(LatencyHistogram::totalCount).sum();
+        }
+    }
+}
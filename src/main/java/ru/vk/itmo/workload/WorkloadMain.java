@@ -0,0 +1,156 @@
+package ru.vk.itmo.workload;
+
+import ru.vk.itmo.Config;
+import ru.vk.itmo.Dao;
+import ru.vk.itmo.Entry;
+import ru.vk.itmo.test.DaoFactories;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Command line entry point: loads records into a Dao made by a discovered factory, runs a YCSB-style workload
+ * and prints the throughput and latency percentiles of each phase, e.g.
+ * <pre>
+ * ./gradlew run --args='--factory abramovilya --workload B --records 100000 --operations 1000000 --threads 4'
+ * </pre>
+ * Without {@code --factory} the available factories are listed.
+ */
+public final class WorkloadMain {
+    private static final Set<String> OPTIONS = Set.of(
+            "factory", "workload", "records", "operations", "threads", "value-size", "distribution",
+            "scan-length", "dir", "seed"
+    );
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+
+    private WorkloadMain() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = parse(args);
+        PrintStream out = System.out;
+        if (!options.containsKey("factory")) {
+            out.println("Usage: --factory <name> [--workload A-F] [--records N] [--operations N] [--threads N]");
+            out.println("       [--value-size N] [--distribution uniform|zipfian|latest] [--scan-length N]");
+            out.println("       [--dir path] [--seed N]");
+            out.println("Factories:");
+            DaoFactories.discover().forEach(factory -> out.println("  " + factory));
+            return;
+        }
+
+        Workload workload = Workload.preset(options.getOrDefault("workload", "A"));
+        if (options.containsKey("distribution")) {
+            workload = workload.withDistribution(
+                    KeyDistribution.valueOf(options.get("distribution").toUpperCase(Locale.ROOT)));
+        }
+        if (options.containsKey("scan-length")) {
+            workload = workload.withMaxScanLength(Integer.parseInt(options.get("scan-length")));
+        }
+        long recordCount = atLeastOne("records", Long.parseLong(options.getOrDefault("records", "100000")));
+        long operationCount = Long.parseLong(options.getOrDefault("operations", "1000000"));
+        int threadCount = (int) atLeastOne("threads", Integer.parseInt(options.getOrDefault("threads", "1")));
+        int valueSize = Integer.parseInt(options.getOrDefault("value-size", "100"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        boolean temporary = !options.containsKey("dir");
+        Path basePath = temporary ? Files.createTempDirectory("dao-workload") : Path.of(options.get("dir"));
+
+        DaoFactory.Factory<?, ?> factory = DaoFactories.create(options.get("factory"));
+        out.printf(Locale.ROOT, "%s, %s%n", factory.getClass().getName(), workload);
+        out.printf(Locale.ROOT, "%d records, %d operations, %d threads, %d byte values, data in %s%n",
+                recordCount, operationCount, threadCount, valueSize, basePath);
+        try {
+            Config config = new Config(basePath);
+            run(factory, config, workload, valueSize, recordCount, operationCount, threadCount, seed, out);
+        } finally {
+            if (temporary) {
+                delete(basePath);
+            }
+        }
+    }
+
+    private static <D, E extends Entry<D>> void run(
+            DaoFactory.Factory<D, E> factory,
+            Config config,
+            Workload workload,
+            int valueSize,
+            long recordCount,
+            long operationCount,
+            int threadCount,
+            long seed,
+            PrintStream out
+    ) throws IOException, InterruptedException {
+        try (Dao<D, E> dao = factory.createDao(config)) {
+            WorkloadDriver<D, E> driver = new WorkloadDriver<>(factory, dao, workload, valueSize, seed);
+            report("LOAD", driver.load(recordCount, threadCount, seed), out);
+            report("RUN", driver.run(operationCount, threadCount, seed + 1), out);
+        }
+    }
+
+    private static void report(String phase, WorkloadDriver.Result result, PrintStream out) {
+        double seconds = result.elapsedNanos() / 1e9;
+        out.printf(Locale.ROOT, "[%s] %d operations in %.2f s, %.0f ops/s%n",
+                phase, result.operationCount(), seconds, result.operationCount() / seconds);
+        result.histograms().forEach((operation, histogram) -> {
+            StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "[%s] %-17s %10d ops",
+                    phase, operation, histogram.totalCount()));
+            for (double percentile : PERCENTILES) {
+                line.append(String.format(Locale.ROOT, ", p%s %s",
+                        formatPercentile(percentile), formatNanos(histogram.percentile(percentile))));
+            }
+            line.append(", max ").append(formatNanos(histogram.maxValue()));
+            out.println(line);
+        });
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile)
+                ? Long.toString((long) percentile)
+                : Double.toString(percentile).replace(".", "");
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + " ns";
+        }
+        if (nanos < 1_000_000) {
+            return String.format(Locale.ROOT, "%.1f us", nanos / 1e3);
+        }
+        return String.format(Locale.ROOT, "%.1f ms", nanos / 1e6);
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            String name = args[i].startsWith("--") ? args[i].substring(2) : args[i];
+            if (!OPTIONS.contains(name) || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Unknown option or missing value: " + args[i]);
+            }
+            options.put(name, args[i + 1]);
+        }
+        return options;
+    }
+
+    private static long atLeastOne(String option, long value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("--" + option + " must be at least 1, not " + value);
+        }
+        return value;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
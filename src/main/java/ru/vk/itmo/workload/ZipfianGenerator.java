@@ -0,0 +1,46 @@
+package ru.vk.itmo.workload;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zipfian distribution over {@code [0, itemCount)} with item 0 the most popular, after Gray et al.,
+ * "Quickly Generating Billion-Record Synthetic Databases", as used by YCSB.
+ * The zeta constant costs a pass over all items, so it is extended incrementally as the item count grows.
+ */
+final class ZipfianGenerator {
+    private static final double THETA = 0.99;
+    private static final double ALPHA = 1 / (1 - THETA);
+    private static final double ZETA2 = 1 + Math.pow(0.5, THETA);
+
+    private long zetaItemCount;
+    private double zeta;
+    private double eta;
+
+    long next(SplittableRandom random, long itemCount) {
+        if (itemCount != zetaItemCount) {
+            updateZeta(itemCount);
+        }
+        double u = random.nextDouble();
+        double uz = u * zeta;
+        if (uz < 1) {
+            return 0;
+        }
+        if (uz < ZETA2) {
+            return 1;
+        }
+        long item = (long) (itemCount * Math.pow(eta * u - eta + 1, ALPHA));
+        return Math.min(item, itemCount - 1);
+    }
+
+    private void updateZeta(long itemCount) {
+        if (itemCount < zetaItemCount) {
+            zeta = 0;
+            zetaItemCount = 0;
+        }
+        for (long i = zetaItemCount + 1; i <= itemCount; i++) {
+            zeta += 1 / Math.pow(i, THETA);
+        }
+        zetaItemCount = itemCount;
+        eta = (1 - Math.pow(2.0 / itemCount, 1 - THETA)) / (1 - ZETA2 / zeta);
+    }
+}
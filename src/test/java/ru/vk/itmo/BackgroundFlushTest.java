@@ -0,0 +1,52 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class BackgroundFlushTest extends BaseTest {
+
+    @DaoTest(stage = 5)
+    void flushesWithoutExplicitCall(Dao<String, Entry<String>> dao) throws IOException {
+        Config config = DaoFactory.Factory.extractConfig(dao);
+        String value = "v".repeat(1024);
+        int count = (int) (3 * config.flushThresholdBytes() / value.length());
+        for (int i = 0; i < count; i++) {
+            dao.upsert(entry(keyAt(i), value));
+        }
+
+        while (!hasFiles(config.basePath())) {
+            sleep(10);
+        }
+        for (int i = 0; i < count; i += 100) {
+            assertSame(dao.get(keyAt(i)), entry(keyAt(i), value));
+        }
+    }
+
+    @DaoTest(stage = 5)
+    void concurrentWritesAcrossFlushes(Dao<String, Entry<String>> dao) throws Exception {
+        int count = 20_000;
+        String padding = "p".repeat(100);
+        List<Entry<String>> entries = entries("k", padding, count);
+        Dao<String, Entry<String>> writer = dao;
+        runInParallel(16, count, value -> writer.upsert(entries.get(value))).close();
+
+        assertSame(writer.all(), entries);
+        writer.close();
+
+        Dao<String, Entry<String>> reopened = DaoFactory.Factory.reopen(writer);
+        assertSame(reopened.all(), entries);
+        Assertions.assertEquals(entries.get(count / 2), reopened.get(entries.get(count / 2).key()));
+    }
+
+    private static boolean hasFiles(Path path) throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            return files.findAny().isPresent();
+        }
+    }
+}
@@ -22,6 +22,8 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 public class BaseTest {
 
@@ -183,11 +185,33 @@ public class BaseTest {
         }
     }
 
+    /**
+     * Reopens the closed Dao with a config derived from its current one, e.g. {@code config -> config.withX(x)}.
+     */
+    public static Dao<String, Entry<String>> reopen(
+            Dao<String, Entry<String>> dao,
+            UnaryOperator<Config> change
+    ) throws IOException {
+        return DaoFactory.Factory.reopen(dao, change.apply(DaoFactory.Factory.extractConfig(dao)));
+    }
+
     public void cleanUpPersistentData(Dao<String, Entry<String>> dao) throws IOException {
         Config config = DaoFactory.Factory.extractConfig(dao);
         cleanUpDir(config);
     }
 
+    public long sizePersistentData(Dao<String, Entry<String>> dao) throws IOException {
+        long size = 0;
+        try (Stream<Path> files = Files.walk(DaoFactory.Factory.extractConfig(dao).basePath())) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file)) {
+                    size += Files.size(file);
+                }
+            }
+        }
+        return size;
+    }
+
     public void cleanUpDir(Config config) throws IOException {
         if (!Files.exists(config.basePath())) {
             return;
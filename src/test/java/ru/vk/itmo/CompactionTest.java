@@ -0,0 +1,48 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+public class CompactionTest extends BaseTest {
+
+    @DaoTest(stage = 5)
+    void compactDropsOverwrittenVersions(Dao<String, Entry<String>> dao) throws IOException {
+        List<Entry<String>> entries = entries(1_000);
+        entries.forEach(dao::upsert);
+        dao.flush();
+        long sizeOfSingleCopy = sizePersistentData(dao);
+        for (int round = 1; round < 10; round++) {
+            entries.forEach(dao::upsert);
+            dao.flush();
+        }
+
+        dao.compact();
+        dao.close();
+
+        Assertions.assertTrue(sizePersistentData(dao) < 2 * sizeOfSingleCopy);
+        dao = DaoFactory.Factory.reopen(dao);
+        assertSame(dao.all(), entries);
+    }
+
+    @DaoTest(stage = 5)
+    void backgroundCompactionKeepsNewestVersions(Dao<String, Entry<String>> dao) throws IOException {
+        int count = 500;
+        for (int round = 0; round < 20; round++) {
+            for (int i = round % 2; i < count; i += 2) {
+                dao.upsert(entry(keyAt(i), valueAt("round" + round + "_", i)));
+            }
+            dao.flush();
+        }
+        dao.close();
+
+        dao = DaoFactory.Factory.reopen(dao);
+        for (int i = 0; i < count; i++) {
+            int lastRound = i % 2 == 0 ? 18 : 19;
+            assertSame(dao.get(keyAt(i)), entry(keyAt(i), valueAt("round" + lastRound + "_", i)));
+        }
+        Assertions.assertEquals(count, list(dao.all()).size());
+    }
+}
@@ -0,0 +1,72 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class CompressionTest extends BaseTest {
+
+    @DaoTest(stage = 5)
+    void shrinksRepetitiveValues(Dao<String, Entry<String>> dao) throws IOException {
+        List<Entry<String>> entries = jsonEntries(3_000);
+        entries.forEach(dao::upsert);
+        dao.close();
+        long plainSize = sizePersistentData(dao);
+        cleanUpPersistentData(dao);
+
+        dao = reopen(dao, config -> config.withCompression(Config.Compression.LZ));
+        entries.forEach(dao::upsert);
+        dao.close();
+        long compressedSize = sizePersistentData(dao);
+        Assertions.assertTrue(compressedSize < plainSize / 2, compressedSize + " of " + plainSize);
+
+        dao = reopen(dao, config -> config.withCompression(Config.Compression.LZ));
+        assertSame(dao.all(), entries);
+        assertSame(dao.get(entries.get(1_500).key()), entries.get(1_500));
+        assertSame(dao.get(entries.get(10).key(), entries.get(13).key()), entries.subList(10, 13));
+        dao.close();
+    }
+
+    @DaoTest(stage = 5)
+    void mixesCompressedAndPlainTables(Dao<String, Entry<String>> dao) throws IOException {
+        List<Entry<String>> entries = new ArrayList<>(jsonEntries(1_000));
+        Random random = new Random(42);
+        for (int i = 0; i < entries.size(); i += 3) {
+            byte[] noise = new byte[100];
+            random.nextBytes(noise);
+            entries.set(i, entry(entries.get(i).key(), new String(noise, StandardCharsets.ISO_8859_1)));
+        }
+
+        dao.close();
+        dao = reopen(dao, config -> config.withCompression(Config.Compression.LZ));
+        entries.subList(0, 500).forEach(dao::upsert);
+        dao.close();
+        dao = reopen(dao, config -> config.withCompression(Config.Compression.NONE));
+        entries.subList(500, entries.size()).forEach(dao::upsert);
+        dao.close();
+
+        dao = reopen(dao, config -> config.withCompression(Config.Compression.LZ));
+        assertSame(dao.all(), entries);
+        dao.compact();
+        dao.close();
+
+        dao = DaoFactory.Factory.reopen(dao);
+        assertSame(dao.all(), entries);
+        dao.close();
+    }
+
+    private List<Entry<String>> jsonEntries(int count) {
+        List<Entry<String>> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String value = "{\"id\":" + i + ",\"name\":\"user" + i + "\",\"email\":\"user" + i
+                    + "@example.com\",\"active\":" + (i % 2 == 0) + ",\"roles\":[\"reader\",\"writer\"]}";
+            entries.add(entry(keyAt(i), value));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class CursorTest extends BaseTest {
+
+    @DaoTest(stage = 5)
+    void matchesIteratorAcrossMemTableAndTables(Dao<String, Entry<String>> dao) throws IOException {
+        int count = 1_000;
+        entries(count).subList(0, count / 2).forEach(dao::upsert);
+        dao.flush();
+        for (int i = 0; i < count; i += 3) {
+            dao.upsert(entry(keyAt(i), null));
+        }
+        dao.flush();
+        entries(count).subList(count / 2, count).forEach(dao::upsert);
+        for (int i = 0; i < count; i += 7) {
+            dao.upsert(entry(keyAt(i), "updated" + i));
+        }
+
+        Assertions.assertEquals(list(dao.all()), collect(dao.cursor(null, null)));
+        Assertions.assertEquals(list(dao.get(keyAt(10), keyAt(900))), collect(dao.cursor(keyAt(10), keyAt(900))));
+        Assertions.assertEquals(List.of(), collect(dao.cursor(keyAt(3), keyAt(3))));
+    }
+
+    @DaoTest(stage = 5)
+    void seekStaysWithinRange(Dao<String, Entry<String>> dao) throws IOException {
+        entries(100).forEach(dao::upsert);
+        dao.flush();
+        dao.upsert(entry(keyAt(50), null));
+
+        Cursor<String> cursor = dao.cursor(keyAt(10), keyAt(90));
+        Assertions.assertEquals(keyAt(10), cursor.key());
+        cursor.seek(keyAt(50));
+        Assertions.assertEquals(keyAt(51), cursor.key());
+        Assertions.assertEquals(valueAt(51), cursor.value());
+        cursor.seek(keyAt(90));
+        Assertions.assertFalse(cursor.isValid());
+        Assertions.assertThrows(NoSuchElementException.class, cursor::key);
+        cursor.seek(null);
+        Assertions.assertEquals(keyAt(10), cursor.key());
+        cursor.seek(keyAt(89));
+        cursor.next();
+        Assertions.assertFalse(cursor.isValid());
+    }
+
+    private static List<Entry<String>> collect(Cursor<String> cursor) {
+        List<Entry<String>> entries = new ArrayList<>();
+        for (; cursor.isValid(); cursor.next()) {
+            entries.add(new BaseEntry<>(cursor.key(), cursor.value()));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,61 @@
+package ru.vk.itmo;
+
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class DescendingRangeTest extends BaseTest {
+
+    @DaoTest(stage = 5)
+    void mirrorsAscendingOrder(Dao<String, Entry<String>> dao) throws IOException {
+        int count = 2_000;
+        for (int i = 0; i < count; i += 2) {
+            dao.upsert(entryAt(i));
+        }
+        dao.flush();
+        for (int i = 1; i < count; i += 2) {
+            dao.upsert(entryAt(i));
+        }
+        dao.flush();
+        for (int i = 0; i < count; i += 3) {
+            dao.upsert(entry(keyAt(i), null));
+        }
+        for (int i = 0; i < count; i += 7) {
+            dao.upsert(entry(keyAt(i), valueAt("memory_", i)));
+        }
+
+        assertSame(dao.allDescending(), reversed(dao.all()));
+        assertSame(dao.getDescending(keyAt(15), keyAt(1_500)), reversed(dao.get(keyAt(15), keyAt(1_500))));
+        assertSame(dao.allFromDescending(keyAt(1_999)), reversed(dao.allFrom(keyAt(1_999))));
+        assertSame(dao.allToDescending(keyAt(3)), reversed(dao.allTo(keyAt(3))));
+        assertEmpty(dao.getDescending(keyAt(10), keyAt(10)));
+    }
+
+    @DaoTest(stage = 5)
+    void walksDeeperLevelsBackwards(Dao<String, Entry<String>> dao) throws IOException {
+        dao.close();
+        dao = reopen(dao, config -> config
+                .withFlushThresholdBytes(4 * 1024)
+                .withCompactionStyle(Config.CompactionStyle.LEVELED));
+        int count = 3_000;
+        for (int i = 0; i < count; i++) {
+            dao.upsert(entryAt(i));
+        }
+        dao.close();
+        dao = DaoFactory.Factory.reopen(dao);
+
+        assertSame(dao.allDescending(), reversed(entries(count).iterator()));
+        List<Entry<String>> latest = list(dao.allToDescending(keyAt(count - 1)));
+        assertSame(latest.subList(0, 3).iterator(), entryAt(count - 2), entryAt(count - 3), entryAt(count - 4));
+        dao.close();
+    }
+
+    private List<Entry<String>> reversed(Iterator<Entry<String>> iterator) {
+        List<Entry<String>> entries = new ArrayList<>();
+        iterator.forEachRemaining(entries::add);
+        return entries.reversed();
+    }
+}
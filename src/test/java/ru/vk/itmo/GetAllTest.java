@@ -0,0 +1,77 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class GetAllTest extends BaseTest {
+
+    @DaoTest(stage = 5)
+    void resultsFollowRequestOrder(Dao<String, Entry<String>> dao) {
+        dao.upsert(entryAt(3));
+        dao.upsert(entryAt(1));
+        dao.upsert(entryAt(2));
+        dao.upsert(entry(keyAt(2), null));
+
+        List<Entry<String>> entries = dao.getAll(List.of(keyAt(3), keyAt(0), keyAt(1), keyAt(2), keyAt(3)));
+
+        Assertions.assertEquals(5, entries.size());
+        assertSame(entries.get(0), entryAt(3));
+        Assertions.assertNull(entries.get(1));
+        assertSame(entries.get(2), entryAt(1));
+        Assertions.assertNull(entries.get(3));
+        assertSame(entries.get(4), entryAt(3));
+        Assertions.assertEquals(List.of(), dao.getAll(List.of()));
+    }
+
+    @DaoTest(stage = 5)
+    void newestVersionAcrossMemoryAndTables(Dao<String, Entry<String>> dao) throws IOException {
+        int count = 3_000;
+        for (int round = 0; round < 3; round++) {
+            for (int i = round; i < count; i += 2) {
+                dao.upsert(entry(keyAt(i), valueAt("round" + round + "_", i)));
+            }
+            dao.flush();
+        }
+        for (int i = 0; i < count; i += 5) {
+            dao.upsert(entry(keyAt(i), null));
+        }
+        dao.close();
+        dao = DaoFactory.Factory.reopen(dao);
+        dao.compact();
+        for (int i = 1; i < count; i += 7) {
+            dao.upsert(entry(keyAt(i), valueAt("memory_", i)));
+        }
+
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < count + 100; i += 3) {
+            keys.add(keyAt(i));
+        }
+        Collections.shuffle(keys, new Random(7));
+
+        List<Entry<String>> entries = dao.getAll(keys);
+        Assertions.assertEquals(keys.size(), entries.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertSame(entries.get(i), expected(Integer.parseInt(keys.get(i).substring(1)), count));
+        }
+        dao.close();
+    }
+
+    private Entry<String> expected(int index, int count) {
+        if (index >= count) {
+            return null;
+        }
+        if (index % 7 == 1) {
+            return entry(keyAt(index), valueAt("memory_", index));
+        }
+        if (index % 5 == 0) {
+            return null;
+        }
+        return entry(keyAt(index), valueAt("round" + (index % 2 == 0 ? 2 : 1) + "_", index));
+    }
+}
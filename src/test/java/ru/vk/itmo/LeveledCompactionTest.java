@@ -0,0 +1,67 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+public class LeveledCompactionTest extends BaseTest {
+    private static final long FLUSH_THRESHOLD_BYTES = 16 * 1024;
+
+    @DaoTest(stage = 5)
+    void keepsNewestVersionsAcrossLevels(Dao<String, Entry<String>> dao) throws IOException {
+        dao = leveled(dao);
+        int count = 2_000;
+        for (int round = 0; round < 20; round++) {
+            for (int i = round % 2; i < count; i += 2) {
+                dao.upsert(entry(keyAt(i), valueAt("round" + round + "_", i)));
+            }
+        }
+        for (int i = 0; i < count; i += 3) {
+            dao.upsert(entry(keyAt(i), null));
+        }
+        dao.close();
+
+        dao = leveled(dao);
+        for (int i = 0; i < count; i++) {
+            int lastRound = i % 2 == 0 ? 18 : 19;
+            Entry<String> expected = i % 3 == 0 ? null : entry(keyAt(i), valueAt("round" + lastRound + "_", i));
+            assertSame(dao.get(keyAt(i)), expected);
+        }
+        Assertions.assertEquals(count - (count + 2) / 3, list(dao.all()).size());
+        Assertions.assertEquals(100 - 100 / 3, list(dao.get(keyAt(100), keyAt(200))).size());
+        dao.close();
+    }
+
+    @DaoTest(stage = 5)
+    void boundsSpaceOfOverwrittenVersions(Dao<String, Entry<String>> dao) throws IOException {
+        dao = leveled(dao);
+        List<Entry<String>> entries = entries(2_000);
+        entries.forEach(dao::upsert);
+        dao.flush();
+        dao.compact();
+        dao.close();
+        long sizeOfSingleCopy = sizePersistentData(dao);
+
+        dao = leveled(dao);
+        for (int round = 0; round < 10; round++) {
+            entries.forEach(dao::upsert);
+        }
+        dao.flush();
+        dao.compact();
+        dao.close();
+
+        Assertions.assertTrue(sizePersistentData(dao) < 1.5 * sizeOfSingleCopy);
+        dao = DaoFactory.Factory.reopen(dao);
+        assertSame(dao.all(), entries);
+        dao.close();
+    }
+
+    private static Dao<String, Entry<String>> leveled(Dao<String, Entry<String>> dao) throws IOException {
+        dao.close();
+        return reopen(dao, config -> config
+                .withFlushThresholdBytes(FLUSH_THRESHOLD_BYTES)
+                .withCompactionStyle(Config.CompactionStyle.LEVELED));
+    }
+}
@@ -0,0 +1,96 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+public class MemTableShardingTest extends BaseTest {
+    private static final int SHARDS = 8;
+
+    @DaoTest(stage = 5)
+    void shardedMemTableServesAllReads(Dao<String, Entry<String>> dao) throws IOException {
+        dao = reopenSharded(dao);
+        int count = 1_000;
+        NavigableMap<String, String> expected = new TreeMap<>();
+        for (Entry<String> entry : entries(count)) {
+            dao.upsert(entry);
+            expected.put(entry.key(), entry.value());
+        }
+        // The memtable after a flush is split after the keys of the flushed one
+        dao.flush();
+        for (int i = 0; i < count; i += 3) {
+            dao.upsert(entry(keyAt(i), "updated" + i));
+            expected.put(keyAt(i), "updated" + i);
+        }
+        for (int i = 0; i < count; i += 5) {
+            dao.upsert(entry(keyAt(i), null));
+            expected.remove(keyAt(i));
+        }
+        dao.upsert(entryAt(count));
+        expected.put(keyAt(count), valueAt(count));
+
+        List<Entry<String>> all = new ArrayList<>();
+        expected.forEach((key, value) -> all.add(entry(key, value)));
+        assertSame(dao.all(), all);
+        assertSame(dao.get(keyAt(100), keyAt(900)), all(expected.subMap(keyAt(100), true, keyAt(900), false)));
+        assertSame(dao.getDescending(keyAt(100), keyAt(900)),
+                all(expected.subMap(keyAt(100), true, keyAt(900), false).descendingMap()));
+        Assertions.assertEquals(
+                List.of(entry(keyAt(999), expected.get(keyAt(999))), entry(keyAt(3), "updated3")),
+                dao.getAll(List.of(keyAt(999), keyAt(3)))
+        );
+        Assertions.assertNull(dao.get(keyAt(500)));
+
+        Cursor<String> cursor = dao.cursor(null, null);
+        cursor.seek(keyAt(500));
+        Assertions.assertEquals(keyAt(501), cursor.key());
+        dao.close();
+    }
+
+    @DaoTest(stage = 5)
+    void snapshotsStayRepeatableUnderConcurrentWriters(Dao<String, Entry<String>> dao) throws Exception {
+        Dao<String, Entry<String>> sharded = reopenSharded(dao);
+        int keyCount = 1_000;
+        entries(keyCount).forEach(sharded::upsert);
+        sharded.flush();
+
+        int count = 20_000;
+        runInParallel(16, count, i -> {
+            if (i % 4 != 0) {
+                // Spread the keys over all the shards
+                sharded.upsert(entry(keyAt(i * 7919 % keyCount), "v" + i));
+            } else {
+                Dao<String, Entry<String>> snapshot = sharded.snapshot();
+                String from = keyAt(i % (keyCount - 100));
+                String to = keyAt(i % (keyCount - 100) + 100);
+                Assertions.assertEquals(list(snapshot.get(from, to)), list(snapshot.get(from, to)));
+            }
+        }).close();
+        sharded.close();
+    }
+
+    @DaoTest(stage = 5)
+    void rejectsShardAndPartitionCountsBelowOne(Dao<String, Entry<String>> dao) throws IOException {
+        Config config = DaoFactory.Factory.extractConfig(dao);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> config.withMemTableShards(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> config.withPartitions(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> config.withPartitions(-1));
+        dao.close();
+    }
+
+    private List<Entry<String>> all(NavigableMap<String, String> map) {
+        List<Entry<String>> entries = new ArrayList<>();
+        map.forEach((key, value) -> entries.add(entry(key, value)));
+        return entries;
+    }
+
+    private static Dao<String, Entry<String>> reopenSharded(Dao<String, Entry<String>> dao) throws IOException {
+        dao.close();
+        return reopen(dao, config -> config.withMemTableShards(SHARDS));
+    }
+}
@@ -0,0 +1,126 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+public class PartitionedDaoTest extends BaseTest {
+    private static final int PARTITIONS = 4;
+
+    @DaoTest(stage = 5)
+    void mergesReadsOverPartitions(Dao<String, Entry<String>> dao) throws IOException {
+        dao = reopenPartitioned(dao, PARTITIONS);
+        int count = 1_000;
+        NavigableMap<String, String> expected = new TreeMap<>();
+        for (Entry<String> entry : entries(count)) {
+            dao.upsert(entry);
+            expected.put(entry.key(), entry.value());
+        }
+        dao.flush();
+        for (int i = 0; i < count; i += 5) {
+            dao.upsert(entry(keyAt(i), null));
+            expected.remove(keyAt(i));
+        }
+        WriteBatch<Entry<String>> batch = new WriteBatch<>();
+        for (int i = 1; i < count; i += 50) {
+            batch.upsert(entry(keyAt(i), "batched" + i));
+            expected.put(keyAt(i), "batched" + i);
+        }
+        dao.write(batch);
+
+        List<Entry<String>> all = all(expected);
+        assertSame(dao.all(), all);
+        assertSame(dao.get(keyAt(100), keyAt(900)), all(expected.subMap(keyAt(100), true, keyAt(900), false)));
+        assertSame(dao.allDescending(), all(expected.descendingMap()));
+        assertSame(dao.get(keyAt(1)), entry(keyAt(1), "batched1"));
+        Assertions.assertNull(dao.get(keyAt(500)));
+        Assertions.assertEquals(
+                Arrays.asList(entry(keyAt(999), expected.get(keyAt(999))), null, entry(keyAt(51), "batched51")),
+                dao.getAll(List.of(keyAt(999), keyAt(500), keyAt(51)))
+        );
+
+        Cursor<String> cursor = dao.cursor(null, null);
+        cursor.seek(keyAt(500));
+        Assertions.assertEquals(keyAt(501), cursor.key());
+
+        dao.close();
+        dao = DaoFactory.Factory.reopen(dao);
+        assertSame(dao.all(), all);
+        try (var partitions = Files.list(DaoFactory.Factory.extractConfig(dao).basePath())) {
+            Assertions.assertEquals(PARTITIONS, partitions.count());
+        }
+        dao.close();
+    }
+
+    @DaoTest(stage = 5)
+    void readersSeeWholeBatchesAcrossPartitions(Dao<String, Entry<String>> dao) throws Exception {
+        dao = reopenPartitioned(dao, PARTITIONS);
+        Dao<String, Entry<String>> partitioned = dao;
+        int keyCount = 50;
+        partitioned.write(batch(keyCount, "initial"));
+        runInParallel(4, 2_000, task -> {
+            if (task % 2 == 0) {
+                partitioned.write(batch(keyCount, "round" + task));
+                return;
+            }
+            List<Entry<String>> entries = list(partitioned.all());
+            Assertions.assertEquals(keyCount, entries.size());
+            for (Entry<String> entry : entries) {
+                Assertions.assertEquals(entries.getFirst().value(), entry.value());
+            }
+        }).close();
+        dao.close();
+    }
+
+    @DaoTest(stage = 5)
+    void refusesDataOfAnotherLayout(Dao<String, Entry<String>> dao) throws IOException {
+        dao.upsert(entryAt(1));
+        dao.close();
+        Assertions.assertThrows(IOException.class, () -> reopen(dao, PARTITIONS, false));
+
+        Dao<String, Entry<String>> partitioned = reopenPartitioned(dao, PARTITIONS);
+        partitioned.upsert(entryAt(1));
+        partitioned.close();
+        Assertions.assertThrows(IOException.class, () -> reopen(partitioned, PARTITIONS / 2, false));
+    }
+
+    private WriteBatch<Entry<String>> batch(int keyCount, String value) {
+        WriteBatch<Entry<String>> batch = new WriteBatch<>();
+        for (int i = 0; i < keyCount; i++) {
+            batch.upsert(entry(keyAt(i), value));
+        }
+        return batch;
+    }
+
+    private List<Entry<String>> all(NavigableMap<String, String> map) {
+        List<Entry<String>> entries = new ArrayList<>();
+        map.forEach((key, value) -> entries.add(entry(key, value)));
+        return entries;
+    }
+
+    /**
+     * Closes the Dao and opens a partitioned one in a subdirectory of its base path.
+     */
+    private static Dao<String, Entry<String>> reopenPartitioned(Dao<String, Entry<String>> dao, int partitions)
+            throws IOException {
+        dao.close();
+        return reopen(dao, partitions, true);
+    }
+
+    private static Dao<String, Entry<String>> reopen(
+            Dao<String, Entry<String>> dao,
+            int partitions,
+            boolean subdirectory
+    ) throws IOException {
+        return reopen(dao, config -> config
+                .withBasePath(subdirectory ? config.basePath().resolve("partitioned") : config.basePath())
+                .withPartitions(partitions));
+    }
+}
@@ -0,0 +1,65 @@
+package ru.vk.itmo;
+
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PersistentRangeTest extends BaseTest {
+
+    @DaoTest(stage = 3)
+    void rangeAcrossFlushes(Dao<String, Entry<String>> dao) throws IOException {
+        List<Entry<String>> entries = entries(300);
+        for (int i = 0; i < entries.size(); i += 3) {
+            dao.upsert(entries.get(i));
+        }
+        dao.flush();
+        for (int i = 1; i < entries.size(); i += 3) {
+            dao.upsert(entries.get(i));
+        }
+        dao.flush();
+        for (int i = 2; i < entries.size(); i += 3) {
+            dao.upsert(entries.get(i));
+        }
+
+        assertSame(dao.all(), entries);
+        assertSame(dao.get(keyAt(10), keyAt(20)), entries.subList(10, 20));
+        assertSame(dao.allFrom(keyAt(290)), entries.subList(290, 300));
+        assertSame(dao.allTo(keyAt(5)), entries.subList(0, 5));
+    }
+
+    @DaoTest(stage = 3)
+    void newestVersionWins(Dao<String, Entry<String>> dao) throws IOException {
+        int count = 100;
+        List<Entry<String>> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            dao.upsert(entryAt(i));
+        }
+        dao.flush();
+        for (int i = 0; i < count; i++) {
+            Entry<String> updated = entry(keyAt(i), valueAt("updated", i));
+            if (i % 2 == 0) {
+                dao.upsert(updated);
+                expected.add(updated);
+            } else {
+                expected.add(entryAt(i));
+            }
+        }
+        dao.close();
+
+        dao = DaoFactory.Factory.reopen(dao);
+        assertSame(dao.all(), expected);
+    }
+
+    @DaoTest(stage = 3)
+    void emptyRangeBetweenTables(Dao<String, Entry<String>> dao) throws IOException {
+        dao.upsert(entry("a", "1"));
+        dao.flush();
+        dao.upsert(entry("z", "2"));
+        dao.flush();
+
+        assertEmpty(dao.get("b", "y"));
+        assertSame(dao.get("a", "b"), entry("a", "1"));
+    }
+}
@@ -0,0 +1,37 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+public class PrefixCompressionTest extends BaseTest {
+    private static final String LONG_PREFIX = "k".repeat(300);
+
+    @DaoTest(stage = 5)
+    void longSharedPrefixes(Dao<String, Entry<String>> dao) throws IOException {
+        int count = 2_000;
+        List<Entry<String>> entries = entries(LONG_PREFIX, "v", count);
+        entries.forEach(dao::upsert);
+        for (int i = 0; i < count; i += 7) {
+            dao.upsert(entry(keyAt(LONG_PREFIX, i), null));
+        }
+        dao.close();
+
+        long keyBytes = (long) count * keyAt(LONG_PREFIX, 0).length();
+        Assertions.assertTrue(sizePersistentData(dao) < keyBytes / 4);
+
+        dao = DaoFactory.Factory.reopen(dao);
+        for (int i = 0; i < count; i++) {
+            assertSame(dao.get(keyAt(LONG_PREFIX, i)), i % 7 == 0 ? null : entries.get(i));
+        }
+        Assertions.assertNull(dao.get(LONG_PREFIX));
+        assertSame(
+                dao.get(keyAt(LONG_PREFIX, 1_001), keyAt(LONG_PREFIX, 1_005)),
+                entries.get(1_002), entries.get(1_003), entries.get(1_004)
+        );
+        Assertions.assertEquals(count - (count + 6) / 7, list(dao.all()).size());
+        dao.close();
+    }
+}
@@ -0,0 +1,56 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PrefixScanTest extends BaseTest {
+    private static final int PREFIX_FILTER_LENGTH = 8;
+
+    @DaoTest(stage = 5)
+    void returnsKeysWithPrefixOnly(Dao<String, Entry<String>> dao) {
+        List<Entry<String>> tenant1 = entries("tenant1/", "v", 20);
+        tenant1.forEach(dao::upsert);
+        entries("tenant10/", "v", 20).forEach(dao::upsert);
+        entries("tenant2/", "v", 20).forEach(dao::upsert);
+        dao.upsert(entry("tenant1", "bare"));
+        dao.upsert(entry("\u007f\u007f", "max"));
+        dao.upsert(entry("\u007f\u007f/1", "max1"));
+        dao.upsert(entry(tenant1.get(3).key(), null));
+
+        List<Entry<String>> expected = new ArrayList<>(tenant1);
+        expected.remove(3);
+        assertSame(dao.scanPrefix("tenant1/"), expected);
+        assertSame(dao.scanPrefix("\u007f"), entry("\u007f\u007f", "max"), entry("\u007f\u007f/1", "max1"));
+        assertEmpty(dao.scanPrefix("tenant3"));
+        assertSame(dao.scanPrefix(""), list(dao.all()));
+    }
+
+    @DaoTest(stage = 5)
+    void prefixFiltersSkipTablesWithoutFalseNegatives(Dao<String, Entry<String>> dao) throws IOException {
+        dao.close();
+        dao = reopen(dao, config -> config.withPrefixFilterLength(PREFIX_FILTER_LENGTH));
+        int tenantCount = 20;
+        for (int tenant = 0; tenant < tenantCount; tenant++) {
+            entries(tenant(tenant) + "/", "v", 50).forEach(dao::upsert);
+            dao.flush();
+        }
+        dao.close();
+        dao = DaoFactory.Factory.reopen(dao);
+
+        for (int tenant = 0; tenant < tenantCount; tenant++) {
+            assertSame(dao.scanPrefix(tenant(tenant) + "/"), entries(tenant(tenant) + "/", "v", 50));
+            assertSame(dao.scanPrefix(tenant(tenant)), entries(tenant(tenant) + "/", "v", 50));
+        }
+        assertEmpty(dao.scanPrefix("tenant_99"));
+        Assertions.assertEquals(tenantCount * 50, list(dao.scanPrefix("tenant")).size());
+        dao.close();
+    }
+
+    private static String tenant(int tenant) {
+        return String.format("tenant%02d", tenant);
+    }
+}
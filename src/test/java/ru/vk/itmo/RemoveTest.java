@@ -0,0 +1,73 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+public class RemoveTest extends BaseTest {
+
+    @DaoTest(stage = 4)
+    void removeFromMemory(Dao<String, Entry<String>> dao) {
+        dao.upsert(entry("a", "1"));
+        dao.upsert(entry("b", "2"));
+        dao.upsert(entry("a", null));
+
+        Assertions.assertNull(dao.get("a"));
+        assertSame(dao.all(), entry("b", "2"));
+    }
+
+    @DaoTest(stage = 4)
+    void removeHidesPersistedValue(Dao<String, Entry<String>> dao) throws IOException {
+        List<Entry<String>> entries = entries(100);
+        entries.forEach(dao::upsert);
+        dao.flush();
+        for (int i = 0; i < entries.size(); i += 2) {
+            dao.upsert(entry(keyAt(i), null));
+        }
+        dao.close();
+
+        dao = DaoFactory.Factory.reopen(dao);
+        for (int i = 0; i < entries.size(); i++) {
+            if (i % 2 == 0) {
+                Assertions.assertNull(dao.get(keyAt(i)));
+            } else {
+                assertSame(dao.get(keyAt(i)), entries.get(i));
+            }
+        }
+        assertSame(dao.get(keyAt(10), keyAt(14)), entryAt(11), entryAt(13));
+    }
+
+    @DaoTest(stage = 4)
+    void reinsertAfterRemove(Dao<String, Entry<String>> dao) throws IOException {
+        dao.upsert(entry("k", "v1"));
+        dao.flush();
+        dao.upsert(entry("k", null));
+        dao.flush();
+        dao.upsert(entry("k", "v2"));
+
+        assertSame(dao.get("k"), entry("k", "v2"));
+        assertSame(dao.all(), entry("k", "v2"));
+    }
+
+    @DaoTest(stage = 4)
+    void compactionPurgesTombstones(Dao<String, Entry<String>> dao) throws IOException {
+        List<Entry<String>> entries = entries(10_000);
+        entries.forEach(dao::upsert);
+        dao.flush();
+        long sizeWithData = sizePersistentData(dao);
+
+        for (Entry<String> entry : entries) {
+            dao.upsert(entry(entry.key(), null));
+        }
+        dao.flush();
+        dao.compact();
+        dao.close();
+
+        Assertions.assertTrue(sizePersistentData(dao) < sizeWithData / 10);
+        dao = DaoFactory.Factory.reopen(dao);
+        assertEmpty(dao.all());
+        Assertions.assertNull(dao.get(keyAt(42)));
+    }
+}
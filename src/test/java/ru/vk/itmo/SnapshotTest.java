@@ -0,0 +1,50 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+public class SnapshotTest extends BaseTest {
+
+    @DaoTest(stage = 5)
+    void ignoresLaterWritesFlushesAndCompactions(Dao<String, Entry<String>> dao) throws IOException {
+        int count = 1_000;
+        List<Entry<String>> entries = entries(count);
+        entries.subList(0, count / 2).forEach(dao::upsert);
+        dao.flush();
+        entries.subList(count / 2, count).forEach(dao::upsert);
+        Dao<String, Entry<String>> snapshot = dao.snapshot();
+
+        for (int i = 0; i < count; i += 2) {
+            dao.upsert(entry(keyAt(i), null));
+        }
+        dao.upsert(entryAt(count));
+        dao.flush();
+        dao.compact();
+        dao.upsert(entry(keyAt(1), "updated"));
+
+        assertSame(snapshot.all(), entries);
+        assertSame(snapshot.get(keyAt(1)), entryAt(1));
+        Assertions.assertNull(snapshot.get(keyAt(count)));
+        Assertions.assertEquals(List.of(entryAt(2), entryAt(1)), snapshot.getAll(List.of(keyAt(2), keyAt(1))));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.upsert(entryAt(0)));
+
+        Assertions.assertNull(dao.get(keyAt(2)));
+        assertSame(dao.get(keyAt(1)), entry(keyAt(1), "updated"));
+    }
+
+    @DaoTest(stage = 5)
+    void iteratorsSeeDataAsOfTheirCreation(Dao<String, Entry<String>> dao) {
+        List<Entry<String>> entries = entries(100);
+        entries.forEach(dao::upsert);
+
+        Iterator<Entry<String>> iterator = dao.all();
+        dao.upsert(entry(keyAt(50), "updated"));
+        dao.upsert(entry(keyAt(60), null));
+        dao.upsert(entryAt(150));
+
+        assertSame(iterator, entries);
+    }
+}
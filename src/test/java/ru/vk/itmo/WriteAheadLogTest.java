@@ -0,0 +1,148 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class WriteAheadLogTest extends BaseTest {
+
+    @DaoTest(stage = 5)
+    void upsertsSurviveCrash(Dao<String, Entry<String>> dao) throws Exception {
+        List<Entry<String>> entries = entries(1_000);
+        entries.forEach(dao::upsert);
+        dao.upsert(entry(keyAt(1_000), null));
+        dao.upsert(entry(keyAt(7), "updated"));
+
+        Dao<String, Entry<String>> recovered = crashImage(dao);
+        try {
+            assertSame(recovered.get(keyAt(7)), entry(keyAt(7), "updated"));
+            Assertions.assertNull(recovered.get(keyAt(1_000)));
+            Assertions.assertEquals(entries.size(), list(recovered.all()).size());
+        } finally {
+            close(recovered);
+        }
+    }
+
+    @DaoTest(stage = 5)
+    void syncedConcurrentUpsertsSurviveCrash(Dao<String, Entry<String>> dao) throws Exception {
+        dao.close();
+        dao = reopen(dao, config -> config.withDurability(Config.Durability.SYNC));
+        Dao<String, Entry<String>> writer = dao;
+        int count = 1_000;
+        runInParallel(4, count, i -> writer.upsert(entryAt(i))).close();
+
+        Dao<String, Entry<String>> recovered = crashImage(dao);
+        try {
+            assertSame(recovered.all(), entries(count));
+        } finally {
+            close(recovered);
+            dao.close();
+        }
+    }
+
+    @DaoTest(stage = 5)
+    void interruptedWritersDoNotStallOthers(Dao<String, Entry<String>> dao) throws Exception {
+        dao.close();
+        dao = reopen(dao, config -> config.withDurability(Config.Durability.SYNC));
+        Dao<String, Entry<String>> writer = dao;
+        int count = 1_000;
+        runInParallel(4, count, i -> {
+            if (i % 10 == 0) {
+                Thread.currentThread().interrupt();
+            }
+            writer.upsert(entryAt(i));
+            // The interrupt is kept for the writer, and cleared here so that the runner goes on
+            Assertions.assertEquals(i % 10 == 0, Thread.interrupted());
+        }).close();
+        assertSame(dao.all(), entries(count));
+        dao.close();
+    }
+
+    @DaoTest(stage = 5)
+    void batchesSurviveCrash(Dao<String, Entry<String>> dao) throws Exception {
+        List<Entry<String>> entries = entries(100);
+        WriteBatch<Entry<String>> batch = new WriteBatch<>();
+        entries.forEach(batch::upsert);
+        batch.upsert(entry(keyAt(100), null));
+        dao.write(batch);
+
+        Dao<String, Entry<String>> recovered = crashImage(dao);
+        try {
+            assertSame(recovered.all(), entries);
+        } finally {
+            close(recovered);
+        }
+    }
+
+    @DaoTest(stage = 5)
+    void rejectedBatchIsNotReplayed(Dao<String, Entry<String>> dao) throws Exception {
+        WriteBatch<Entry<String>> batch = new WriteBatch<Entry<String>>()
+                .upsert(entryAt(1))
+                .upsert(entry(null, "value"));
+        Assertions.assertThrows(NullPointerException.class, () -> dao.write(batch));
+        // The next write goes to disk in the frame the rejected batch started to fill
+        dao.upsert(entryAt(2));
+
+        Dao<String, Entry<String>> recovered = crashImage(dao);
+        try {
+            assertSame(recovered.all(), entryAt(2));
+        } finally {
+            close(recovered);
+        }
+    }
+
+    @DaoTest(stage = 5)
+    void tornTailIsIgnored(Dao<String, Entry<String>> dao) throws Exception {
+        List<Entry<String>> entries = entries(100);
+        entries.forEach(dao::upsert);
+
+        Dao<String, Entry<String>> recovered = crashImage(dao, file -> {
+            if (file.getFileName().toString().endsWith(".log")) {
+                Files.write(file, new byte[] {42, 0, 0, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+            }
+        });
+        try {
+            assertSame(recovered.all(), entries);
+        } finally {
+            close(recovered);
+        }
+    }
+
+    private Dao<String, Entry<String>> crashImage(Dao<String, Entry<String>> dao) throws IOException {
+        return crashImage(dao, file -> {
+        });
+    }
+
+    /**
+     * Opens a copy of the files {@code dao} has on disk right now, as if the process had crashed.
+     */
+    private Dao<String, Entry<String>> crashImage(
+            Dao<String, Entry<String>> dao,
+            FileTransformer transformer
+    ) throws IOException {
+        Path copy = Files.createTempDirectory("dao-crash");
+        try (Stream<Path> files = Files.list(DaoFactory.Factory.extractConfig(dao).basePath())) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Path target = copy.resolve(file.getFileName());
+                Files.copy(file, target);
+                transformer.transform(target);
+            }
+        }
+        return reopen(dao, config -> config.withBasePath(copy));
+    }
+
+    private void close(Dao<String, Entry<String>> dao) throws IOException {
+        dao.close();
+        cleanUpPersistentData(dao);
+    }
+
+    private interface FileTransformer {
+        void transform(Path file) throws IOException;
+    }
+}
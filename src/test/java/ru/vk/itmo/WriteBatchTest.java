@@ -0,0 +1,53 @@
+package ru.vk.itmo;
+
+import org.junit.jupiter.api.Assertions;
+import ru.vk.itmo.test.DaoFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+public class WriteBatchTest extends BaseTest {
+
+    @DaoTest(stage = 5)
+    void appliesUpsertsAndDeletesInOrder(Dao<String, Entry<String>> dao) throws IOException {
+        dao.upsert(entryAt(1));
+        dao.upsert(entryAt(2));
+
+        dao.write(new WriteBatch<Entry<String>>()
+                .upsert(entry(keyAt(1), null))
+                .upsert(entry(keyAt(2), "first"))
+                .upsert(entryAt(3))
+                .upsert(entry(keyAt(2), "second")));
+        dao.write(new WriteBatch<>());
+
+        assertSame(dao.all(), entry(keyAt(2), "second"), entryAt(3));
+        dao.close();
+        dao = DaoFactory.Factory.reopen(dao);
+        assertSame(dao.all(), entry(keyAt(2), "second"), entryAt(3));
+    }
+
+    @DaoTest(stage = 5)
+    void readersSeeWholeBatches(Dao<String, Entry<String>> dao) throws Exception {
+        int keyCount = 50;
+        dao.write(batch(keyCount, "initial"));
+        runInParallel(4, 2_000, task -> {
+            if (task % 2 == 0) {
+                dao.write(batch(keyCount, "round" + task));
+                return;
+            }
+            List<Entry<String>> entries = list(dao.all());
+            Assertions.assertEquals(keyCount, entries.size());
+            for (Entry<String> entry : entries) {
+                Assertions.assertEquals(entries.getFirst().value(), entry.value());
+            }
+        }).close();
+    }
+
+    private WriteBatch<Entry<String>> batch(int keyCount, String value) {
+        WriteBatch<Entry<String>> batch = new WriteBatch<>();
+        for (int i = 0; i < keyCount; i++) {
+            batch.upsert(entry(keyAt(i), value));
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.vk.itmo.abramovilya;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.vk.itmo.BaseEntry;
+import ru.vk.itmo.Config;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class BlockCacheTest {
+    private static final int BLOCK_SIZE = 512;
+
+    @Test
+    void servesRepeatedReadsFromCache() {
+        BlockCache cache = new BlockCache(1024 * 1024);
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            cache.get(1, 7, blockIndex -> {
+                loads.incrementAndGet();
+                return MemorySegment.ofArray(new byte[BLOCK_SIZE]);
+            });
+        }
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(1, cache.missCount());
+        Assertions.assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    void evictsBlocksOverBudget() {
+        long capacity = 16 * 1024;
+        BlockCache cache = new BlockCache(capacity);
+        int blockCount = 1_000;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < blockCount; i++) {
+                cache.get(1, i, blockIndex -> MemorySegment.ofArray(new byte[BLOCK_SIZE]));
+            }
+        }
+        // Only the blocks that fit in the budget may survive the first pass
+        Assertions.assertTrue(cache.hitCount() <= capacity / BLOCK_SIZE, "hits " + cache.hitCount());
+        Assertions.assertEquals(2L * blockCount, cache.hitCount() + cache.missCount());
+    }
+
+    @Test
+    void cachesDecompressedBlocksOnly() throws IOException {
+        InMemoryDao plain = readTwice(Config.Compression.NONE);
+        Assertions.assertEquals(0, plain.blockCacheMissCount());
+        Assertions.assertEquals(0, plain.blockCacheHitCount());
+
+        InMemoryDao compressed = readTwice(Config.Compression.LZ);
+        Assertions.assertEquals(1, compressed.blockCacheMissCount());
+        Assertions.assertEquals(1, compressed.blockCacheHitCount());
+    }
+
+    /**
+     * Writes a table, reads the same key from it twice and returns the closed Dao with its counters.
+     */
+    private static InMemoryDao readTwice(Config.Compression compression) throws IOException {
+        Path basePath = Files.createTempDirectory("block-cache");
+        try {
+            InMemoryDao dao = new InMemoryDao(new Config(basePath).withCompression(compression));
+            for (int i = 0; i < 1_000; i++) {
+                dao.upsert(new BaseEntry<>(segment("key" + i), segment("{\"value\":\"value" + i + "\"}")));
+            }
+            dao.flush();
+            for (int i = 0; i < 2; i++) {
+                Assertions.assertNotNull(dao.get(segment("key500")));
+            }
+            dao.close();
+            return dao;
+        } finally {
+            try (Stream<Path> files = Files.walk(basePath)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static MemorySegment segment(String value) {
+        return MemorySegment.ofArray(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,91 @@
+package ru.vk.itmo.abramovilya;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.vk.itmo.BaseEntry;
+import ru.vk.itmo.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class BloomFilterTest {
+    private static final int KEYS = 20_000;
+    private static final int PROBES = 100_000;
+
+    @Test
+    void hasNoFalseNegatives() throws IOException {
+        BloomFilter filter = build(10, KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            Assertions.assertTrue(filter.mightContain(BloomFilter.hash(segment("key" + i))), "key" + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRateFollowsBitsPerKey() throws IOException {
+        for (int bitsPerKey : new int[] {4, 10, 16}) {
+            BloomFilter filter = build(bitsPerKey, KEYS);
+            int falsePositives = 0;
+            for (int i = 0; i < PROBES; i++) {
+                if (filter.mightContain(BloomFilter.hash(segment("absent" + i)))) {
+                    falsePositives++;
+                }
+            }
+            int hashCount = BloomFilter.hashCount(bitsPerKey);
+            double expected = Math.pow(1 - Math.exp(-(double) hashCount / bitsPerKey), hashCount);
+            double actual = (double) falsePositives / PROBES;
+            // Leaves room for sampling noise, but not for a filter that is much worse than its size allows
+            Assertions.assertTrue(actual <= expected * 1.5 + 0.001,
+                    bitsPerKey + " bits per key: " + actual + " false positives, expected about " + expected);
+        }
+    }
+
+    @Test
+    void zeroBitsPerKeyDisablesFilter() throws IOException {
+        BloomFilter filter = build(0, KEYS);
+        Assertions.assertEquals(0, BloomFilter.hashCount(0));
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertTrue(filter.mightContain(BloomFilter.hash(segment("absent" + i))));
+        }
+
+        Path basePath = Files.createTempDirectory("bloom-filter");
+        try {
+            InMemoryDao dao = new InMemoryDao(new Config(basePath).withBloomFilterBitsPerKey(0));
+            for (int i = 0; i < 1_000; i++) {
+                dao.upsert(new BaseEntry<>(segment("key" + i), segment("value" + i)));
+            }
+            dao.flush();
+            for (int i = 0; i < 1_000; i++) {
+                Assertions.assertNotNull(dao.get(segment("key" + i)));
+                Assertions.assertNull(dao.get(segment("absent" + i)));
+            }
+            dao.close();
+        } finally {
+            try (Stream<Path> files = Files.walk(basePath)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static BloomFilter build(int bitsPerKey, int keyCount) throws IOException {
+        BloomFilter.Builder builder = new BloomFilter.Builder(keyCount, bitsPerKey);
+        for (int i = 0; i < keyCount; i++) {
+            builder.add(segment("key" + i));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        builder.writeTo(Channels.newChannel(bytes));
+        return new BloomFilter(MemorySegment.ofArray(bytes.toByteArray()), builder.hashCount());
+    }
+
+    private static MemorySegment segment(String value) {
+        return MemorySegment.ofArray(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
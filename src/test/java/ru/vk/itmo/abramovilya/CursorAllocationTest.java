@@ -0,0 +1,84 @@
+package ru.vk.itmo.abramovilya;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.vk.itmo.BaseEntry;
+import ru.vk.itmo.Config;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class CursorAllocationTest {
+    private static final int ENTRIES = 20_000;
+
+    @Test
+    void scanWithCopiesAllocatesNothingPerEntry() throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assertions.assertTrue(threads.isThreadAllocatedMemorySupported());
+        Path basePath = Files.createTempDirectory("cursor-allocation");
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment keyBuffer = arena.allocate(64);
+            MemorySegment valueBuffer = arena.allocate(64);
+            InMemoryDao dao = new InMemoryDao(new Config(basePath));
+            try {
+                // Half of the entries in a table, the other half and some tombstones in the memtable
+                for (int i = 0; i < ENTRIES; i += 2) {
+                    dao.upsert(new BaseEntry<>(segment(key(i)), segment("value" + i)));
+                }
+                dao.flush();
+                for (int i = 1; i < ENTRIES; i += 2) {
+                    dao.upsert(new BaseEntry<>(segment(key(i)), segment("value" + i)));
+                }
+                for (int i = 0; i < ENTRIES; i += 10) {
+                    dao.upsert(new BaseEntry<>(segment(key(i)), null));
+                }
+
+                long threadId = Thread.currentThread().threadId();
+                long expected = ENTRIES - ENTRIES / 10;
+                // The first scans warm up the code, the last one is measured
+                long allocated = 0;
+                for (int i = 0; i < 5; i++) {
+                    long before = threads.getThreadAllocatedBytes(threadId);
+                    Assertions.assertEquals(expected, scan(dao.cursor(null, null), keyBuffer, valueBuffer));
+                    allocated = threads.getThreadAllocatedBytes(threadId) - before;
+                }
+                // Setting up the cursor allocates per table and per block, never per entry
+                Assertions.assertTrue(allocated < expected, "allocated " + allocated + " bytes");
+            } finally {
+                dao.close();
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(basePath)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static long scan(MemorySegmentCursor cursor, MemorySegment keyBuffer, MemorySegment valueBuffer) {
+        long count = 0;
+        for (; cursor.isValid(); cursor.next()) {
+            cursor.copyKeyTo(keyBuffer, 0);
+            cursor.copyValueTo(valueBuffer, 0);
+            count += cursor.keySize() + cursor.valueSize() > 0 ? 1 : 0;
+        }
+        return count;
+    }
+
+    private static String key(int i) {
+        return String.format("key%08d", i);
+    }
+
+    private static MemorySegment segment(String value) {
+        return MemorySegment.ofArray(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
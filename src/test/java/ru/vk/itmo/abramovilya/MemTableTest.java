@@ -0,0 +1,122 @@
+package ru.vk.itmo.abramovilya;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.vk.itmo.BaseEntry;
+import ru.vk.itmo.Entry;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MemTableTest {
+    private static final int THREADS = 8;
+    private static final int HOT_KEYS = 4;
+    private static final int UPSERTS_PER_THREAD = 5_000;
+
+    @Test
+    void keepsVersionsInSequenceOrderWhateverTheArrivalOrder() {
+        MemTable memTable = new MemTable();
+        for (long sequence : new long[] {5, 3, 7, 4}) {
+            memTable.upsert(entry("key", Long.toString(sequence)), sequence);
+        }
+        memTable.upsert(entry("key", "5 again"), 5);
+
+        Assertions.assertNull(memTable.get(segment("key"), 2));
+        Assertions.assertEquals("3", value(memTable.get(segment("key"), 3)));
+        Assertions.assertEquals("4", value(memTable.get(segment("key"), 4)));
+        Assertions.assertEquals("5 again", value(memTable.get(segment("key"), 6)));
+        Assertions.assertEquals("7", value(memTable.get(segment("key"), Long.MAX_VALUE)));
+        Assertions.assertEquals(1, memTable.size());
+    }
+
+    @Test
+    void concurrentUpsertsLeaveNewestVersions() throws Exception {
+        MemTable memTable = new MemTable();
+        AtomicLong sequences = new AtomicLong();
+        Map<String, Long> newest = new ConcurrentHashMap<>();
+        Map<String, Long> versions = new ConcurrentHashMap<>();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadIndex = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < UPSERTS_PER_THREAD; i++) {
+                        // Hot keys race on the same node; the others interleave with the keys of other threads
+                        String key = random.nextBoolean()
+                                ? "hot" + random.nextInt(HOT_KEYS)
+                                : "key" + (i * THREADS + threadIndex);
+                        long sequence = sequences.incrementAndGet();
+                        if (random.nextInt(8) == 0) {
+                            // Lets later sequences overtake this one
+                            Thread.yield();
+                        }
+                        memTable.upsert(entry(key, Long.toString(sequence)), sequence);
+                        newest.merge(key, sequence, Math::max);
+                        versions.merge(key, 1L, Long::sum);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (Map.Entry<String, Long> expected : newest.entrySet()) {
+            MemorySegment key = segment(expected.getKey());
+            Assertions.assertEquals(expected.getValue().toString(), value(memTable.get(key, Long.MAX_VALUE)));
+            // Walking down the chain meets every version once, newest first
+            long versionCount = 0;
+            long sequence = Long.MAX_VALUE;
+            for (Entry<MemorySegment> entry = memTable.get(key, sequence); entry != null;
+                    entry = memTable.get(key, sequence)) {
+                long version = Long.parseLong(value(entry));
+                Assertions.assertTrue(version <= sequence);
+                versionCount++;
+                sequence = version - 1;
+            }
+            Assertions.assertEquals(versions.get(expected.getKey()).longValue(), versionCount);
+        }
+
+        Iterator<Entry<MemorySegment>> iterator = memTable.get(null, null, Long.MAX_VALUE);
+        List<String> scanned = new ArrayList<>();
+        while (iterator.hasNext()) {
+            Entry<MemorySegment> entry = iterator.next();
+            String key = new String(entry.key().toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+            Assertions.assertEquals(newest.get(key).toString(), value(entry));
+            scanned.add(key);
+        }
+        Assertions.assertEquals(newest.keySet().stream().sorted().toList(), scanned);
+        Assertions.assertEquals(newest.size(), memTable.size());
+    }
+
+    private static Entry<MemorySegment> entry(String key, String value) {
+        return new BaseEntry<>(segment(key), segment(value));
+    }
+
+    private static MemorySegment segment(String value) {
+        return MemorySegment.ofArray(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String value(Entry<MemorySegment> entry) {
+        return new String(entry.value().toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.vk.itmo.abramovilya;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class MemorySegmentComparatorTest {
+
+    @Test
+    void prefixesOrderNegativeAndHighBitBytesAsSigned() {
+        List<MemorySegment> keys = List.of(
+                key(),
+                key(-128),
+                key(-128, -128),
+                key(-1),
+                key(-1, 0),
+                key(0),
+                key(0, -128),
+                key(1),
+                key(127),
+                key(127, 127, 127, 127, 127, 127, 127, 127),
+                key(127, 127, 127, 127, 127, 127, 127, 127, -128),
+                key(127, 127, 127, 127, 127, 127, 127, 127, 0)
+        );
+        for (int i = 0; i < keys.size(); i++) {
+            for (int j = 0; j < keys.size(); j++) {
+                int order = Integer.signum(compareWithPrefixes(keys.get(i), keys.get(j)));
+                Assertions.assertEquals(Integer.compare(i, j), order, i + " vs " + j);
+            }
+        }
+    }
+
+    @Test
+    void prefixComparisonMatchesFullComparison() {
+        Random random = new Random(42);
+        List<MemorySegment> keys = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            byte[] bytes = new byte[random.nextInt(13)];
+            for (int j = 0; j < bytes.length; j++) {
+                // Few distinct bytes, so that keys often share their prefixes
+                bytes[j] = (byte) new int[] {-128, -1, 0, 1, 127}[random.nextInt(5)];
+            }
+            keys.add(MemorySegment.ofArray(bytes));
+        }
+        for (int i = 1; i < keys.size(); i++) {
+            MemorySegment left = keys.get(i - 1);
+            MemorySegment right = keys.get(i);
+            int expected = Integer.signum(MemorySegmentComparator.compare(left, right));
+            Assertions.assertEquals(expected, Integer.signum(compareWithPrefixes(left, right)));
+            int prefixOrder = Long.compareUnsigned(
+                    MemorySegmentComparator.prefix(left),
+                    MemorySegmentComparator.prefix(right)
+            );
+            // Differing prefixes alone must already give the order
+            Assertions.assertTrue(prefixOrder == 0 || Integer.signum(prefixOrder) == expected);
+        }
+    }
+
+    private static int compareWithPrefixes(MemorySegment left, MemorySegment right) {
+        return MemorySegmentComparator.compare(
+                left, MemorySegmentComparator.prefix(left),
+                right, MemorySegmentComparator.prefix(right)
+        );
+    }
+
+    private static MemorySegment key(int... bytes) {
+        byte[] key = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            key[i] = (byte) bytes[i];
+        }
+        return MemorySegment.ofArray(key);
+    }
+}
@@ -0,0 +1,85 @@
+package ru.vk.itmo.abramovilya;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class SlabAllocatorTest {
+    private static final int THREADS = 8;
+    private static final int BLOCKS_PER_THREAD = 5_000;
+
+    @Test
+    void alignsBlocksAndCountsAlignedSizes() {
+        SlabAllocator allocator = new SlabAllocator();
+        Assertions.assertEquals(0, allocator.allocate(1));
+        long expectedBytes = Long.BYTES;
+        for (int size = 1; size <= 100; size++) {
+            long address = allocator.allocate(size);
+            Assertions.assertEquals(0, SlabAllocator.offset(address) % Long.BYTES);
+            Assertions.assertTrue(SlabAllocator.offset(address) + size <= allocator.slab(address).byteSize());
+            expectedBytes += (size + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+        }
+        Assertions.assertEquals(expectedBytes, allocator.allocatedBytes());
+    }
+
+    @Test
+    void givesLargeBlocksSlabsOfTheirOwn() {
+        SlabAllocator allocator = new SlabAllocator();
+        allocator.allocate(16);
+        long large = allocator.allocate(SlabAllocator.SLAB_SIZE + 1);
+        Assertions.assertEquals(0, SlabAllocator.offset(large));
+        Assertions.assertTrue(allocator.slab(large).byteSize() > SlabAllocator.SLAB_SIZE);
+        // Small blocks keep filling the shared slab
+        Assertions.assertNotEquals(large >>> Integer.SIZE, allocator.allocate(16) >>> Integer.SIZE);
+    }
+
+    @Test
+    void concurrentAllocationsDoNotOverlap() throws Exception {
+        SlabAllocator allocator = new SlabAllocator();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<List<long[]>> blocks = new ArrayList<>();
+        try {
+            List<Future<List<long[]>>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                byte fill = (byte) (thread + 1);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    List<long[]> own = new ArrayList<>(BLOCKS_PER_THREAD);
+                    for (int i = 0; i < BLOCKS_PER_THREAD; i++) {
+                        // Now and then a block too large for the shared slab
+                        long size = random.nextInt(64) == 0 ? SlabAllocator.SLAB_SIZE / 4 : 1 + random.nextInt(200);
+                        long address = allocator.allocate(size);
+                        allocator.slab(address).asSlice(SlabAllocator.offset(address), size).fill(fill);
+                        own.add(new long[] {address, size});
+                    }
+                    return own;
+                }));
+            }
+            for (Future<List<long[]>> future : futures) {
+                blocks.add(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            for (long[] block : blocks.get(thread)) {
+                MemorySegment segment = allocator.slab(block[0]).asSlice(SlabAllocator.offset(block[0]), block[1]);
+                for (long i = 0; i < block[1]; i++) {
+                    Assertions.assertEquals(thread + 1, segment.get(ValueLayout.JAVA_BYTE, i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ru.vk.itmo.abramovilya;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.vk.itmo.BaseEntry;
+import ru.vk.itmo.Config;
+import ru.vk.itmo.Entry;
+import ru.vk.itmo.WriteBatch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class WriteFailureTest {
+
+    @Test
+    void batchFailingInMemTableStaysInvisible() throws IOException {
+        Path basePath = Files.createTempDirectory("write-failure");
+        try {
+            InMemoryDao dao = new InMemoryDao(new Config(basePath));
+            dao.upsert(new BaseEntry<>(segment("before"), segment("value")));
+            WriteBatch<Entry<MemorySegment>> batch = new WriteBatch<Entry<MemorySegment>>()
+                    .upsert(new BaseEntry<>(segment("first"), segment("value")))
+                    .upsert(new FailingEntry(segment("second")));
+            Assertions.assertThrows(IllegalStateException.class, () -> dao.write(batch));
+
+            // The first entry of the batch made it to the memtable, but its sequence is never published
+            Assertions.assertNull(dao.get(segment("first")));
+            Assertions.assertNotNull(dao.get(segment("before")));
+            // The log is failed for good, so no later write is committed without the batch
+            Assertions.assertThrows(UncheckedIOException.class,
+                    () -> dao.upsert(new BaseEntry<>(segment("after"), segment("value"))));
+            Assertions.assertThrows(IOException.class, dao::close);
+        } finally {
+            try (Stream<Path> files = Files.walk(basePath)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static MemorySegment segment(String value) {
+        return MemorySegment.ofArray(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Entry that can be logged, but fails once the memtable reads its value again.
+     */
+    private static final class FailingEntry implements Entry<MemorySegment> {
+        private final MemorySegment key;
+        private int valueReads;
+
+        FailingEntry(MemorySegment key) {
+            this.key = key;
+        }
+
+        @Override
+        public MemorySegment key() {
+            return key;
+        }
+
+        @Override
+        public MemorySegment value() {
+            if (valueReads++ > 0) {
+                throw new IllegalStateException("Value is gone");
+            }
+            return segment("value");
+        }
+    }
+}
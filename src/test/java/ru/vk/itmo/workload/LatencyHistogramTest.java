@@ -0,0 +1,57 @@
+package ru.vk.itmo.workload;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        Assertions.assertEquals(100, histogram.totalCount());
+        Assertions.assertEquals(50, histogram.percentile(50));
+        Assertions.assertEquals(99, histogram.percentile(99));
+        Assertions.assertEquals(100, histogram.percentile(100));
+        Assertions.assertEquals(1, histogram.percentile(0));
+    }
+
+    @Test
+    void largeValuesAreWithinTwoPercent() {
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            histogram.record(Long.MAX_VALUE / 2);
+            // The upper bound of the bucket of the value, which is never below the value itself
+            long reported = histogram.percentile(50);
+            Assertions.assertTrue(reported >= value && reported <= value + value / 50, value + " as " + reported);
+        }
+    }
+
+    @Test
+    void percentilesNeverExceedMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_001);
+        histogram.record(-5);
+        Assertions.assertEquals(0, histogram.percentile(50));
+        Assertions.assertEquals(1_000_001, histogram.percentile(99.9));
+        Assertions.assertEquals(1_000_001, histogram.maxValue());
+    }
+
+    @Test
+    void mergedHistogramCountsBoth() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (long value = 1; value <= 50; value++) {
+            first.record(value);
+            second.record(value + 50);
+        }
+        first.add(second);
+        Assertions.assertEquals(100, first.totalCount());
+        Assertions.assertEquals(100, first.maxValue());
+        Assertions.assertEquals(50, first.percentile(50));
+        Assertions.assertEquals(90, first.percentile(90));
+    }
+}
@@ -0,0 +1,25 @@
+package ru.vk.itmo.workload;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class WorkloadMainTest {
+
+    @Test
+    void parsesOptionsAndRejectsBadCounts() {
+        Assertions.assertEquals(
+                Map.of("factory", "abramovilya", "records", "10"),
+                WorkloadMain.parse(new String[] {"--factory", "abramovilya", "records", "10"})
+        );
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> WorkloadMain.parse(new String[] {"--unknown", "1"}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> WorkloadMain.parse(new String[] {"--records"}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> WorkloadMain.main(new String[] {"--factory", "abramovilya", "--records", "0"}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> WorkloadMain.main(new String[] {"--factory", "abramovilya", "--threads", "0"}));
+    }
+}
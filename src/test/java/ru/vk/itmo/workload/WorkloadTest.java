@@ -0,0 +1,43 @@
+package ru.vk.itmo.workload;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class WorkloadTest {
+    private static final int STEPS = 100_000;
+
+    @Test
+    void operationsFollowProportions() {
+        for (String name : new String[] {"A", "B", "C", "D", "E", "F"}) {
+            Workload workload = Workload.preset(name);
+            Map<Workload.Operation, Integer> counts = new EnumMap<>(Workload.Operation.class);
+            for (int i = 0; i < STEPS; i++) {
+                counts.merge(workload.operation((double) i / STEPS), 1, Integer::sum);
+            }
+            assertShare(workload.readProportion(), counts.get(Workload.Operation.READ), name);
+            assertShare(workload.updateProportion(), counts.get(Workload.Operation.UPDATE), name);
+            assertShare(workload.insertProportion(), counts.get(Workload.Operation.INSERT), name);
+            assertShare(workload.scanProportion(), counts.get(Workload.Operation.SCAN), name);
+            assertShare(workload.readModifyWriteProportion(), counts.get(Workload.Operation.READ_MODIFY_WRITE), name);
+        }
+    }
+
+    @Test
+    void presetProportionsAddUpToOne() {
+        for (String name : new String[] {"a", "b", "c", "d", "e", "f"}) {
+            Workload workload = Workload.preset(name);
+            double sum = workload.readProportion() + workload.updateProportion() + workload.insertProportion()
+                    + workload.scanProportion() + workload.readModifyWriteProportion();
+            Assertions.assertEquals(1, sum, 1e-9, name);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Workload.preset("G"));
+    }
+
+    private static void assertShare(double proportion, Integer count, String name) {
+        double share = count == null ? 0 : (double) count / STEPS;
+        Assertions.assertEquals(proportion, share, 1e-4, name);
+    }
+}
@@ -0,0 +1,64 @@
+package ru.vk.itmo.workload;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+public class ZipfianGeneratorTest {
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    void frequenciesFollowZipfLaw() {
+        int itemCount = 1_000;
+        long[] counts = sample(new ZipfianGenerator(), new SplittableRandom(1), itemCount);
+        for (int rank = 1; rank < 10; rank++) {
+            Assertions.assertTrue(counts[rank - 1] > counts[rank], "rank " + rank);
+        }
+        // Item i is chosen about (i + 1)^-0.99 times as often as item 0
+        double ratio = (double) counts[0] / counts[9];
+        Assertions.assertEquals(Math.pow(10, 0.99), ratio, 1.0);
+    }
+
+    @Test
+    void growingItemCountMatchesFreshGenerator() {
+        ZipfianGenerator grown = new ZipfianGenerator();
+        grown.next(new SplittableRandom(2), 10);
+        grown.next(new SplittableRandom(2), 500);
+        ZipfianGenerator fresh = new ZipfianGenerator();
+        SplittableRandom grownRandom = new SplittableRandom(3);
+        SplittableRandom freshRandom = new SplittableRandom(3);
+        for (int i = 0; i < 1_000; i++) {
+            Assertions.assertEquals(fresh.next(freshRandom, 1_000), grown.next(grownRandom, 1_000));
+        }
+        // Shrinking starts over
+        Assertions.assertTrue(grown.next(grownRandom, 3) < 3);
+    }
+
+    @Test
+    void latestPrefersNewestRecords() {
+        KeyDistribution.Chooser chooser = KeyDistribution.LATEST.chooser();
+        SplittableRandom random = new SplittableRandom(4);
+        int recordCount = 1_000;
+        long[] counts = new long[recordCount];
+        for (int i = 0; i < SAMPLES; i++) {
+            long record = chooser.next(random, recordCount);
+            Assertions.assertTrue(record >= 0 && record < recordCount, Long.toString(record));
+            counts[(int) record]++;
+        }
+        for (int record = 0; record < recordCount - 1; record++) {
+            Assertions.assertTrue(counts[recordCount - 1] > counts[record], "record " + record);
+        }
+        Assertions.assertTrue(counts[recordCount - 2] > counts[recordCount - 10]);
+    }
+
+    private static long[] sample(ZipfianGenerator generator, SplittableRandom random, int itemCount) {
+        long[] counts = new long[itemCount];
+        for (int i = 0; i < SAMPLES; i++) {
+            long item = generator.next(random, itemCount);
+            Assertions.assertTrue(item >= 0 && item < itemCount, Long.toString(item));
+            counts[(int) item]++;
+        }
+        return counts;
+    }
+}